@@ -0,0 +1,79 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Diagnostics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable outcome of a single Compiler.compile call.
+ * Stages that did not run have no CSS (null) and a time of zero.
+ */
+public final class CompilationResult {
+
+    public enum Stage {
+        PARSE,
+        CHECK,
+        TRANSFORM,
+        GENERATE
+    }
+
+    private final AST ast;
+    private final Diagnostics diagnostics;
+    private final String css;
+    private final List<String> errors;
+    private final Map<Stage, Long> nanos;
+
+    CompilationResult(AST ast, Diagnostics diagnostics, String css, List<String> errors, Map<Stage, Long> nanos) {
+        this.ast = ast;
+        this.diagnostics = diagnostics;
+        this.css = css;
+        this.errors = List.copyOf(errors);
+        this.nanos = Collections.unmodifiableMap(new EnumMap<>(nanos));
+    }
+
+    /**
+     * The AST after the last stage that ran. It belongs to this result only and is not shared with other calls.
+     */
+    public AST getAST() {
+        return ast;
+    }
+
+    /**
+     * What the check found, errors and warnings. Empty when the check did not run.
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public String getCss() {
+        return css;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public boolean isSucceeded() {
+        return errors.isEmpty();
+    }
+
+    public boolean hasRun(Stage stage) {
+        return nanos.containsKey(stage);
+    }
+
+    public long getNanos(Stage stage) {
+        return nanos.getOrDefault(stage, 0L);
+    }
+
+    public long getTotalNanos() {
+        long total = 0;
+        for (long stageNanos : nanos.values()) {
+            total += stageNanos;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,248 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.CompilationResult.Stage;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.arena.ASTReader;
+import nl.han.ica.icss.ast.arena.ASTWriter;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.Diagnostic;
+import nl.han.ica.icss.checker.Diagnostics;
+import nl.han.ica.icss.checker.PropertySchema;
+import nl.han.ica.icss.checker.Resolver;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.CharStreamSources;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import nl.han.ica.icss.parser.SyntaxErrorCollector;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Stateless entry point for the whole pipeline. Unlike Pipeline, every call works on its own
+ * lexer, parser, AST and error list, so compile can be called from many threads at once.
+ */
+public final class Compiler {
+
+    private static final String CACHE_EXTENSION = ".icssb";
+
+    private Compiler() { }
+
+    public static CompilationResult compile(String source) {
+        return compile(source, Options.DEFAULT);
+    }
+
+    /**
+     * Runs the stages that are enabled in the options, stopping at the first stage that reports errors.
+     */
+    public static CompilationResult compile(String source, Options options) {
+        return compile(errorListener -> ParserDriver.parse(source, errorListener, options.getParseOptions()), options);
+    }
+
+    /**
+     * Compiles a UTF-8 file. The file is decoded straight into the lexer's input; without a cache, big files
+     * are memory-mapped.
+     * With a cache directory in the options, the checked AST is read from the cache when the file has
+     * been compiled before with the same content and the same PropertySchema, and parse and check are skipped.
+     * The cache key is a hash of the bytes that were decoded, so the file is read once.
+     */
+    public static CompilationResult compile(Path source, Options options) throws IOException {
+        //The cached diagnostics depend on the schema, so the key and the check use the same one
+        PropertySchema schema = PropertySchema.get();
+        CharStream input;
+        Path cacheFile = null;
+        if (options.getCacheDirectory() != null && options.isCheck()) {
+            MessageDigest digest = sha256();
+            input = CharStreamSources.fromPath(source, digest);
+            cacheFile = options.getCacheDirectory().resolve(cacheKey(digest, schema) + CACHE_EXTENSION);
+        } else {
+            input = CharStreamSources.fromPath(source);
+        }
+        return compile(errorListener -> ParserDriver.parse(input, errorListener, options.getParseOptions()), options,
+                schema, cacheFile);
+    }
+
+    private static CompilationResult compile(Function<ANTLRErrorListener, AST> parser, Options options) {
+        return compile(parser, options, PropertySchema.get(), null);
+    }
+
+    private static CompilationResult compile(Function<ANTLRErrorListener, AST> parser, Options options,
+                                             PropertySchema schema, Path cacheFile) {
+        List<String> errors = new ArrayList<>();
+        Diagnostics diagnostics = new Diagnostics();
+        Map<Stage, Long> nanos = new EnumMap<>(Stage.class);
+        String css = null;
+
+        //A cached tree has been checked already, loading it counts as the parse
+        long start = System.nanoTime();
+        AST ast = cacheFile != null ? readCache(cacheFile, diagnostics) : null;
+        if (ast != null) {
+            //The file has no bindings: resolve here, before the tree can be shared
+            Resolver.resolve(ast);
+            for (Diagnostic error : diagnostics.getErrors()) {
+                errors.add(error.toString());
+            }
+            nanos.put(Stage.PARSE, System.nanoTime() - start);
+            nanos.put(Stage.CHECK, 0L);
+        } else {
+            try {
+                ast = parser.apply(new SyntaxErrorCollector(errors));
+            } catch (RecognitionException e) {
+                ast = new AST();
+                errors.add(e.getMessage());
+            } catch (ParseCancellationException e) {
+                ast = new AST();
+                errors.add("Syntax error");
+            }
+            nanos.put(Stage.PARSE, System.nanoTime() - start);
+
+            if (errors.isEmpty() && options.isCheck()) {
+                start = System.nanoTime();
+                Checker checker = new Checker(schema);
+                diagnostics = options.isParallelCheck() ? checker.checkParallel(ast) : checker.check(ast);
+                for (Diagnostic error : diagnostics.getErrors()) {
+                    errors.add(error.toString());
+                }
+                nanos.put(Stage.CHECK, System.nanoTime() - start);
+                if (cacheFile != null)
+                    writeCache(ast, diagnostics, cacheFile);
+            }
+        }
+        //The Generator only handles evaluated trees, so generate also evaluates without transform
+        if (errors.isEmpty() && options.isCheck() && (options.isTransform() || options.isGenerate())) {
+            start = System.nanoTime();
+            ast = new Evaluator().evaluate(ast);
+            nanos.put(Stage.TRANSFORM, System.nanoTime() - start);
+        }
+        if (errors.isEmpty() && options.isCheck() && options.isGenerate()) {
+            start = System.nanoTime();
+            css = new Generator().generate(ast);
+            nanos.put(Stage.GENERATE, System.nanoTime() - start);
+        }
+
+        return new CompilationResult(ast, diagnostics, css, errors, nanos);
+    }
+
+    /*
+     A cache file that is missing, of another version or damaged is a miss: the file is compiled
+     from source and the cache file is written again.
+     */
+    private static AST readCache(Path cacheFile, Diagnostics diagnostics) {
+        if (!Files.isRegularFile(cacheFile))
+            return null;
+        try {
+            return ASTReader.read(cacheFile, diagnostics);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    //A cache that cannot be written only costs time on the next run
+    private static void writeCache(AST ast, Diagnostics diagnostics, Path cacheFile) {
+        try {
+            ASTWriter.write(ast, diagnostics, cacheFile);
+        } catch (IOException e) {
+            //ignored
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //The digest of the source with the fingerprint of the schema: after a schema reload every file is a miss
+    private static String cacheKey(MessageDigest source, PropertySchema schema) {
+        source.update(schema.getFingerprint());
+        StringBuilder hex = new StringBuilder();
+        for (byte b : source.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Immutable set of switches for compile. Use the with-methods to derive a changed copy.
+     */
+    public static final class Options {
+
+        public static final Options DEFAULT = new Options(ParseOptions.DEFAULT, true, false, true, true, null);
+        public static final Options PARSE_ONLY = new Options(ParseOptions.DEFAULT, false, false, false, false, null);
+
+        private final ParseOptions parseOptions;
+        private final boolean check;
+        private final boolean parallelCheck;
+        private final boolean transform;
+        private final boolean generate;
+        private final Path cacheDirectory;
+
+        private Options(ParseOptions parseOptions, boolean check, boolean parallelCheck, boolean transform,
+                        boolean generate, Path cacheDirectory) {
+            this.parseOptions = parseOptions;
+            this.check = check;
+            this.parallelCheck = parallelCheck;
+            this.transform = transform;
+            this.generate = generate;
+            this.cacheDirectory = cacheDirectory;
+        }
+
+        public ParseOptions getParseOptions() { return parseOptions; }
+        public boolean isCheck() { return check; }
+        public boolean isParallelCheck() { return parallelCheck; }
+        public boolean isTransform() { return transform; }
+        public boolean isGenerate() { return generate; }
+        public Path getCacheDirectory() { return cacheDirectory; }
+
+        public Options withParseOptions(ParseOptions parseOptions) {
+            return new Options(parseOptions, check, parallelCheck, transform, generate, cacheDirectory);
+        }
+
+        public Options withCheck(boolean check) {
+            return new Options(parseOptions, check, parallelCheck, transform, generate, cacheDirectory);
+        }
+
+        /**
+         * Checks the stylerules of a stylesheet concurrently, see Checker.checkParallel.
+         */
+        public Options withParallelCheck(boolean parallelCheck) {
+            return new Options(parseOptions, check, parallelCheck, transform, generate, cacheDirectory);
+        }
+
+        /**
+         * Without transform the result holds the checked tree, unless generate is on: the Generator
+         * needs the evaluated tree, so then it is evaluated anyway.
+         */
+        public Options withTransform(boolean transform) {
+            return new Options(parseOptions, check, parallelCheck, transform, generate, cacheDirectory);
+        }
+
+        public Options withGenerate(boolean generate) {
+            return new Options(parseOptions, check, parallelCheck, transform, generate, cacheDirectory);
+        }
+
+        /**
+         * Directory for checked ASTs of files compiled with compile(Path, ...), null for no cache.
+         * The directory must exist. Files are named after a hash of the source, so one directory can
+         * be shared by all inputs and by concurrent compiles.
+         */
+        public Options withCacheDirectory(Path cacheDirectory) {
+            return new Options(parseOptions, check, parallelCheck, transform, generate, cacheDirectory);
+        }
+    }
+}
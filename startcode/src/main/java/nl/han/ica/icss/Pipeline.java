@@ -1,23 +1,28 @@
 package nl.han.ica.icss;
 
 import nl.han.ica.icss.ast.AST;
-import nl.han.ica.icss.checker.Checker;
-import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.checker.Diagnostic;
+import nl.han.ica.icss.checker.Diagnostics;
+import nl.han.ica.icss.checker.IncrementalChecker;
 import nl.han.ica.icss.generator.Generator;
-import nl.han.ica.icss.parser.ASTListener;
-import nl.han.ica.icss.parser.ICSSLexer;
-import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.parser.CharStreamSources;
+import nl.han.ica.icss.parser.ParseMode;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import nl.han.ica.icss.parser.ParserKind;
 import nl.han.ica.icss.transforms.Evaluator;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
 import org.antlr.v4.runtime.dfa.DFA;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class Pipeline implements ANTLRErrorListener {
 
@@ -26,6 +31,10 @@ public class Pipeline implements ANTLRErrorListener {
     private boolean checked = false;
     private boolean transformed = false;
     private List<String> errors;
+    private Diagnostics diagnostics = new Diagnostics();
+    private ParseOptions parseOptions = ParseOptions.DEFAULT;
+    //Checking the same AST again only checks the statements that changed since
+    private final IncrementalChecker checker = new IncrementalChecker();
 
     public Pipeline() {
         errors = new ArrayList<>();
@@ -37,6 +46,12 @@ public class Pipeline implements ANTLRErrorListener {
     public List<String> getErrors() {
         return errors;
     }
+    /**
+     * Diagnostics of the last check, empty before the first check and after parsing.
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
     public boolean isParsed() {
         return parsed;
     }
@@ -46,31 +61,49 @@ public class Pipeline implements ANTLRErrorListener {
     public boolean isTransformed() {
         return transformed;
     }
+    public ParseMode getParseMode() {
+        return parseOptions.getMode();
+    }
+    public void setParseMode(ParseMode mode) {
+        parseOptions = parseOptions.withMode(mode);
+    }
+    public ParserKind getParserKind() {
+        return parseOptions.getParser();
+    }
+    public void setParserKind(ParserKind parser) {
+        parseOptions = parseOptions.withParser(parser);
+    }
+    public boolean isParallelParse() {
+        return parseOptions.isParallel();
+    }
+    public void setParallelParse(boolean parallel) {
+        parseOptions = parseOptions.withParallel(parallel);
+    }
 
     public void parseString(String input) {
+        parse(() -> ParserDriver.parse(input, this, parseOptions));
+    }
 
-        //Lex (with Antlr's generated lexer)
-        CharStream inputStream = CharStreams.fromString(input);
-        ICSSLexer lexer = new ICSSLexer(inputStream);
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(this);
-        errors.clear();
-        try {
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-
-            //Parse (with Antlr's generated parser)
-            ICSSParser parser = new ICSSParser(tokens);
-            parser.removeErrorListeners();
-            parser.addErrorListener(this);
-
-            ParseTree parseTree = parser.stylesheet();
+    /**
+     * Parses a UTF-8 file without reading it into a String first. Big files are memory-mapped.
+     */
+    public void parsePath(Path path) throws IOException {
+        CharStream input = CharStreamSources.fromPath(path);
+        parse(() -> ParserDriver.parse(input, this, parseOptions));
+    }
 
-            //Extract AST from the Antlr parse tree
-            ASTListener listener = new ASTListener();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            walker.walk(listener, parseTree);
+    /**
+     * Parses UTF-8 input from a channel without reading it into a String first.
+     */
+    public void parse(ReadableByteChannel channel) throws IOException {
+        CharStream input = CharStreamSources.fromChannel(channel, IntStream.UNKNOWN_SOURCE_NAME);
+        parse(() -> ParserDriver.parse(input, this, parseOptions));
+    }
 
-            this.ast = listener.getAST();
+    private void parse(Supplier<AST> parser) {
+        errors.clear();
+        try {
+            this.ast = parser.get();
 
         } catch (RecognitionException e) {
             this.ast = new AST();
@@ -80,6 +113,7 @@ public class Pipeline implements ANTLRErrorListener {
             this.ast = new AST();
             errors.add("Syntax error");
         }
+        diagnostics = new Diagnostics();
         parsed = errors.isEmpty();
         checked = transformed = false;
     }
@@ -87,18 +121,15 @@ public class Pipeline implements ANTLRErrorListener {
             if(ast == null)
                 return false;
 
-           (new Checker()).check(this.ast);
+           diagnostics = checker.check(this.ast);
 
-            ArrayList<SemanticError> errors = this.ast.getErrors();
-            if (!errors.isEmpty()) {
-                for (SemanticError e : errors) {
-                    this.errors.add(e.toString());
-                }
+            for (Diagnostic e : diagnostics.getErrors()) {
+                this.errors.add(e.toString());
             }
 
-            checked = errors.isEmpty();
+            checked = !diagnostics.hasErrors();
             transformed = false;
-            return errors.isEmpty();
+            return checked;
     }
 
     public void clearErrors(){
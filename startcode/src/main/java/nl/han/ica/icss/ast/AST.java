@@ -1,9 +1,5 @@
 package nl.han.ica.icss.ast;
 
-import nl.han.ica.icss.checker.SemanticError;
-
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Objects;
 
 public class AST {
@@ -19,19 +15,20 @@ public class AST {
 	public void setRoot(Stylesheet stylesheet) {
 		root = stylesheet;
 	}
-    public ArrayList<SemanticError> getErrors() {
-	    ArrayList<SemanticError> errors = new ArrayList<>();
-        collectErrors(errors,root);
-        return errors;
-    }
-    private void collectErrors(ArrayList<SemanticError> errors, ASTNode node) {
-	    if(node.hasError()) {
-	        errors.add(node.getError());
-        }
-        for(ASTNode child: node.getChildren()) {
-	        collectErrors(errors,child);
-        }
-    }
+	/*
+	 Clears the cached structural hash of every node, after changing the tree through public fields.
+	 */
+	public void invalidateHashes() {
+		invalidateHashes(root);
+	}
+	private void invalidateHashes(ASTNode node) {
+		node.invalidateHash();
+		for(int i = 0; i < node.getChildCount(); i++) {
+			ASTNode child = node.getChild(i);
+			if(child != null)
+				invalidateHashes(child);
+		}
+	}
 	@Override
 	public String toString() {
 		return root.toString();
@@ -1,13 +1,17 @@
 package nl.han.ica.icss.ast;
 
-import nl.han.ica.icss.checker.SemanticError;
-
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 public class ASTNode {
 
-    private SemanticError error = null;
+    //Cached structuralHash, valid while hashed is set. hashed is written after it, so a thread
+    //that sees hashed set also sees the hash; a racing thread at worst computes it again.
+    private int structuralHash;
+    private volatile boolean hashed;
+    //The node this node was first stored in, so invalidateHash can reach the hashes that include it
+    private ASTNode parent;
 
     /*
      This method is used in the GUI to create an appropriate label
@@ -19,11 +23,142 @@ public class ASTNode {
 
     /*
      Different AST nodes use different attributes to store their children.
-     This method provides a unified interface.
+     This method provides a unified interface. It copies the children into a new list;
+     to walk the tree use getChildCount/getChild or forEachChild, which allocate nothing.
      */
     public ArrayList<ASTNode> getChildren() {
-        return new ArrayList<>();
+        ArrayList<ASTNode> children = new ArrayList<>(getChildCount());
+        for (int i = 0; i < getChildCount(); i++)
+            children.add(getChild(i));
+        return children;
+    }
+
+    /*
+     Number of children, in the order of getChildren.
+     */
+    public int getChildCount() {
+        return 0;
+    }
+
+    /*
+     The child at the given index, in the order of getChildren.
+     */
+    public ASTNode getChild(int index) {
+        throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + getChildCount() + " children");
+    }
+
+    public void forEachChild(Consumer<? super ASTNode> action) {
+        for (int i = 0; i < getChildCount(); i++)
+            action.accept(getChild(i));
     }
+
+    /*
+     Helpers for nodes with two optional children, such as a Declaration with its property and expression.
+     */
+    protected static int countChildren(ASTNode first, ASTNode second) {
+        return (first != null ? 1 : 0) + (second != null ? 1 : 0);
+    }
+    protected static ASTNode childAt(int index, ASTNode first, ASTNode second) {
+        if (index == 0 && first != null)
+            return first;
+        if (index == countChildren(first, null) && second != null)
+            return second;
+        throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + countChildren(first, second) + " children");
+    }
+
+    /*
+     Hash of the class, the payload and all children, so structurally equal subtrees have equal hashes.
+     It is computed on first use, from the cached hashes of the children, and kept until the node
+     or one of its descendants changes through addChild, removeChild or a setter: those call
+     invalidateHash, which also clears the hashes of the ancestors.
+     Writing a child field or body list directly is not seen; call invalidateHash on the changed
+     node afterwards, or AST.invalidateHashes for the whole tree.
+     */
+    public final int structuralHash() {
+        if (hashed)
+            return structuralHash;
+        int hash = getClass().getName().hashCode() * 31 + payloadHash();
+        for (int i = 0; i < getChildCount(); i++) {
+            ASTNode child = getChild(i);
+            hash = hash * 31 + (child == null ? 0 : child.structuralHash());
+        }
+        structuralHash = hash;
+        hashed = true;
+        return hash;
+    }
+
+    /*
+     Clears the cached hash of this node and of the nodes it belongs to, up to the root.
+     A node shared by several trees, such as a declaration the Evaluator reuses in its result,
+     belongs to the tree it was first stored in and only clears the hashes there: after changing it,
+     call AST.invalidateHashes on the other trees. The walk stops at an ancestor that is not hashed,
+     since hashing a node hashes all its descendants first.
+     */
+    public void invalidateHash() {
+        hashed = false;
+        for (ASTNode node = parent; node != null && node.hashed; node = node.parent)
+            node.hashed = false;
+    }
+
+    /*
+     Called by addChild, the setters and the constructors of subclasses for every child they store:
+     links the child to this node, unless it already belongs to another node, and clears the hash
+     of this node. So a tree that shares nodes of another tree never changes that tree, and several
+     threads can share the nodes of one tree at once. Literals are not linked, they are shared
+     between trees (see Literals) and never change.
+     */
+    protected final <T extends ASTNode> T adopt(T child) {
+        if (child != null && !(child instanceof Literal) && ((ASTNode) child).parent == null)
+            ((ASTNode) child).parent = this;
+        invalidateHash();
+        return child;
+    }
+    /*
+     Like adopt, but also for a child that belongs to another node: for nodes that move out of
+     a tree that is thrown away, such as the tree of a re-parsed region.
+     */
+    protected final <T extends ASTNode> T take(T child) {
+        if (child != null && !(child instanceof Literal))
+            ((ASTNode) child).parent = this;
+        invalidateHash();
+        return child;
+    }
+    /*
+     Unlinks a child that was removed from this node, so it can belong to another node.
+     */
+    protected final void release(ASTNode child) {
+        if (child != null && child.parent == this)
+            child.parent = null;
+        invalidateHash();
+    }
+    protected final <T extends ASTNode> ArrayList<T> adoptAll(ArrayList<T> children) {
+        for (T child : children)
+            adopt(child);
+        invalidateHash();
+        return children;
+    }
+
+    /*
+     Nodes with a value of their own (literals, names, selectors) include it here and in payloadEquals.
+     */
+    protected int payloadHash() {
+        return 0;
+    }
+
+    /*
+     Only called with a node of the same class.
+     */
+    protected boolean payloadEquals(ASTNode other) {
+        return true;
+    }
+
+    /*
+     Calls the visit method of the visitor for the class of this node.
+     */
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitNode(this, context);
+    }
+
     /*
     By implementing this method in a subclass you can easily create AST nodes
       incrementally.
@@ -38,21 +173,6 @@ public class ASTNode {
         return this;
     }
 
-    public SemanticError getError() {
-        return this.error;
-    }
-
-    public void setError(String description) {
-        this.error = new SemanticError(description);
-    }
-    public void setError(){
-        this.error = new SemanticError();
-    }
-
-    public boolean hasError() {
-        return error != null;
-    }
-
 	@Override
 	public String toString() {
 		StringBuilder result = new StringBuilder();
@@ -63,26 +183,39 @@ public class ASTNode {
 		builder.append("[");
 		builder.append(getNodeLabel());	
 		builder.append("|");
-		for(ASTNode child : getChildren()) {
-			child.toString(builder);
-		}	
+		for(int i = 0; i < getChildCount(); i++) {
+			getChild(i).toString(builder);
+		}
 		builder.append("]");
 	}
 
+	/*
+	 Structural equality: same class, same payload (literal value, name, selector) and equal children.
+	 Subtrees with different structural hashes are unequal without looking further.
+	 */
 	@Override
     public boolean equals(Object o) {
-        if(! (o instanceof ASTNode))
+        if(this == o)
+            return true;
+        if(o == null || getClass() != o.getClass())
+            return false;
+        ASTNode other = (ASTNode) o;
+        if(structuralHash() != other.structuralHash() || !payloadEquals(other))
             return false;
         //Compare all children
-        List<ASTNode> thisChildren = this.getChildren();
-        List<ASTNode> otherChildren = ((ASTNode) o).getChildren();
-        if(otherChildren.size() != thisChildren.size())
+        int count = this.getChildCount();
+        if(other.getChildCount() != count)
             return false;
-        for(int i = 0; i < thisChildren.size(); i++ ) {
-            if(!thisChildren.get(i).equals(otherChildren.get(i))) {
+        for(int i = 0; i < count; i++ ) {
+            if(!Objects.equals(this.getChild(i), other.getChild(i))) {
                 return false;
             }
         }
         return true;
     }
+
+	@Override
+	public int hashCode() {
+		return structuralHash();
+	}
 }
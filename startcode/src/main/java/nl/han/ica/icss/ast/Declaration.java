@@ -1,8 +1,5 @@
 package nl.han.ica.icss.ast;
 
-import java.util.ArrayList;
-import java.util.Objects;
-
 /*
  * A Declaration defines a style property. Declarations are things like "width: 100px"
  */
@@ -15,7 +12,7 @@ public class Declaration extends ASTNode {
 	}
 	public Declaration(String property) {
 		super();
-		this.property = new PropertyName(property);
+		this.property = adopt(new PropertyName(property));
 	}
 	@Override
 	public String getNodeLabel() {
@@ -23,36 +20,28 @@ public class Declaration extends ASTNode {
 	}
 
 	@Override
-	public ArrayList<ASTNode> getChildren() {
-
-		ArrayList<ASTNode> children = new ArrayList<>();
-		if(property != null)
-		    children.add(property);
-		if(expression != null)
-		    children.add(expression);
-		return children;
+	public int getChildCount() {
+		return countChildren(property, expression);
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		return childAt(index, property, expression);
 	}
 	@Override
 	public ASTNode addChild(ASTNode child) {
 		if(child instanceof PropertyName) {
-			property = (PropertyName) child;
+			property = adopt((PropertyName) child);
 		} else if(child instanceof Expression) {
-			expression = (Expression) child;
+			expression = adopt((Expression) child);
 		}
 		return this;
 	}
-
-	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		Declaration that = (Declaration) o;
-		return Objects.equals(property, that.property) &&
-				Objects.equals(expression, that.expression);
+	public void setExpression(Expression expression) {
+		this.expression = adopt(expression);
 	}
+
 	@Override
-	public int hashCode() {
-		return Objects.hash(property, expression);
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitDeclaration(this, context);
 	}
 }
@@ -1,7 +1,6 @@
 package nl.han.ica.icss.ast;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 public class ElseClause extends ASTNode{
 
@@ -11,7 +10,7 @@ public class ElseClause extends ASTNode{
 
     public ElseClause(ArrayList<ASTNode> body) {
 
-        this.body = body;
+        this.body = adoptAll(body);
     }
 
     @Override
@@ -19,34 +18,23 @@ public class ElseClause extends ASTNode{
         return "Else_Clause";
     }
     @Override
-    public ArrayList<ASTNode> getChildren() {
-        ArrayList<ASTNode> children = new ArrayList<>();
-        children.addAll(body);
-
-        return children;
+    public int getChildCount() {
+        return body.size();
+    }
+    @Override
+    public ASTNode getChild(int index) {
+        return body.get(index);
     }
 
     @Override
     public ASTNode addChild(ASTNode child) {
 
-        body.add(child);
-
+        body.add(adopt(child));
         return this;
     }
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        ElseClause ElseClause = (ElseClause) o;
-        return Objects.equals(body, ElseClause.body);
-    }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(body);
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitElseClause(this, context);
     }
-
-
-
 }
@@ -1,3 +1,20 @@
 package nl.han.ica.icss.ast;
 
-public abstract class Expression extends ASTNode { }
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+public abstract class Expression extends ASTNode {
+
+	/*
+	 Type of the value. Literals have it from the start; on the other expressions the Checker sets it,
+	 before that it is UNDEFINED. Later passes use it instead of working the type out again.
+	 */
+	public ExpressionType type;
+
+	protected Expression() {
+		this(ExpressionType.UNDEFINED);
+	}
+
+	protected Expression(ExpressionType type) {
+		this.type = type;
+	}
+}
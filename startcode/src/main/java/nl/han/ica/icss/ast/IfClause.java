@@ -1,11 +1,9 @@
 package nl.han.ica.icss.ast;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 public class IfClause extends ASTNode {
 
-
     public Expression conditionalExpression;
     public ArrayList<ASTNode> body = new ArrayList<>();
     public ElseClause elseClause;
@@ -14,14 +12,14 @@ public class IfClause extends ASTNode {
 
     public IfClause(Expression conditionalExpression, ArrayList<ASTNode> body) {
 
-        this.conditionalExpression = conditionalExpression;
-        this.body = body;
+        this.conditionalExpression = adopt(conditionalExpression);
+        this.body = adoptAll(body);
     }
     public IfClause(Expression conditionalExpression, ArrayList<ASTNode> body, ElseClause elseClause) {
 
-        this.conditionalExpression = conditionalExpression;
-        this.body = body;
-        this.elseClause = elseClause;
+        this.conditionalExpression = adopt(conditionalExpression);
+        this.body = adoptAll(body);
+        this.elseClause = adopt(elseClause);
     }
 
     @Override
@@ -29,50 +27,41 @@ public class IfClause extends ASTNode {
         return "If_Clause";
     }
     @Override
-    public ArrayList<ASTNode> getChildren() {
-        ArrayList<ASTNode> children = new ArrayList<>();
-        children.add(conditionalExpression);
-        children.addAll(body);
-        if (elseClause!=null)
-            children.add(elseClause);
-
-        return children;
+    public int getChildCount() {
+        return 1 + body.size() + (elseClause != null ? 1 : 0);
+    }
+    @Override
+    public ASTNode getChild(int index) {
+        if (index == 0)
+            return conditionalExpression;
+        if (index <= body.size())
+            return body.get(index - 1);
+        if (index == body.size() + 1 && elseClause != null)
+            return elseClause;
+        throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + getChildCount() + " children");
     }
 
     @Override
     public ASTNode addChild(ASTNode child) {
         if(child instanceof Expression)
-            conditionalExpression  = (Expression) child;
+            conditionalExpression  = adopt((Expression) child);
         else if (child instanceof ElseClause)
-            elseClause = (ElseClause) child;
+            elseClause = adopt((ElseClause) child);
         else
-            body.add(child);
-
+            body.add(adopt(child));
         return this;
     }
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        IfClause ifClause = (IfClause) o;
-        if (this.elseClause == null)
-            return Objects.equals(conditionalExpression, ifClause.getConditionalExpression()) &&
-                Objects.equals(body, ifClause.body);
-        else
-            return Objects.equals(conditionalExpression, ifClause.getConditionalExpression()) &&
-                    Objects.equals(body, ifClause.body) &&
-                    Objects.equals(elseClause, ifClause.elseClause);
-
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(conditionalExpression, body, elseClause);
+    public void setConditionalExpression(Expression conditionalExpression) {
+        this.conditionalExpression = adopt(conditionalExpression);
     }
 
     public Expression getConditionalExpression() {
         return conditionalExpression;
     }
     public ElseClause getElseClause() { return elseClause; }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitIfClause(this, context);
+    }
 }
@@ -1,4 +1,10 @@
 package nl.han.ica.icss.ast;
 
+import nl.han.ica.icss.ast.types.ExpressionType;
+
 public abstract class Literal extends Expression {
+
+	protected Literal(ExpressionType type) {
+		super(type);
+	}
 }
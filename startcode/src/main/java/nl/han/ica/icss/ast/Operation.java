@@ -1,29 +1,32 @@
 package nl.han.ica.icss.ast;
 
-import java.util.ArrayList;
-
 public abstract class Operation extends Expression {
 
     public Expression lhs;
     public Expression rhs;
 
     @Override
-    public ArrayList<ASTNode> getChildren() {
-        ArrayList<ASTNode> children = new ArrayList<>();
-        if(lhs != null)
-            children.add(lhs);
-        if(rhs != null)
-            children.add(rhs);
-        return children;
+    public int getChildCount() {
+        return countChildren(lhs, rhs);
+    }
+    @Override
+    public ASTNode getChild(int index) {
+        return childAt(index, lhs, rhs);
     }
 
     @Override
     public ASTNode addChild(ASTNode child) {
         if(lhs == null) {
-            lhs = (Expression) child;
+            lhs = adopt((Expression) child);
         } else if(rhs == null) {
-            rhs = (Expression) child;
+            rhs = adopt((Expression) child);
         }
         return this;
     }
+    public void setLhs(Expression lhs) {
+        this.lhs = adopt(lhs);
+    }
+    public void setRhs(Expression rhs) {
+        this.rhs = adopt(rhs);
+    }
 }
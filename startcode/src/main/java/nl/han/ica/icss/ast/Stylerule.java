@@ -1,7 +1,6 @@
 package nl.han.ica.icss.ast;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 public class Stylerule extends ASTNode {
 	
@@ -13,8 +12,8 @@ public class Stylerule extends ASTNode {
     public Stylerule(Selector selector, ArrayList<ASTNode> body) {
 
     	this.selectors = new ArrayList<>();
-    	this.selectors.add(selector);
-    	this.body = body;
+    	this.selectors.add(adopt(selector));
+    	this.body = adoptAll(body);
     }
 
     @Override
@@ -22,35 +21,27 @@ public class Stylerule extends ASTNode {
 		return "Stylerule";
 	}
 	@Override
-	public ArrayList<ASTNode> getChildren() {
-		ArrayList<ASTNode> children = new ArrayList<>();
-		children.addAll(selectors);
-		children.addAll(body);
-
-		return children;
+	public int getChildCount() {
+		return selectors.size() + body.size();
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		if (index < selectors.size())
+			return selectors.get(index);
+		return body.get(index - selectors.size());
 	}
 
     @Override
     public ASTNode addChild(ASTNode child) {
 		if(child instanceof Selector)
-			selectors.add((Selector) child);
+			selectors.add(adopt((Selector) child));
 		else
-        	body.add(child);
-
+        	body.add(adopt(child));
 		return this;
     }
-	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		Stylerule stylerule = (Stylerule) o;
-		return Objects.equals(selectors, stylerule.selectors) &&
-				Objects.equals(body, stylerule.body);
-	}
 
 	@Override
-	public int hashCode() {
-		return Objects.hash(selectors, body);
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitStylerule(this, context);
 	}
 }
@@ -1,9 +1,7 @@
 package nl.han.ica.icss.ast;
 
-import nl.han.ica.icss.checker.SemanticError;
-
 import java.util.ArrayList;
-import java.util.Objects;
+import java.util.List;
 
 /**
  * A stylesheet is the root node of the AST, it consists of one or more statements
@@ -11,46 +9,72 @@ import java.util.Objects;
  */
 public class Stylesheet extends ASTNode {
 
-
 	public ArrayList<ASTNode> body;
-	
+
+	/*
+	 Number of variable slots per scope depth, set by the Resolver; null when not resolved.
+	 addChild and removeChild clear it, after changing the tree through the public fields set it to null.
+	 The Resolver sets it last, after the bindings and the liveness flags, so a thread that sees it
+	 set also sees those.
+	 */
+	public volatile int[] frameSizes;
+
 	public Stylesheet() {
 		this.body = new ArrayList<>();
 	}
 	public Stylesheet(ArrayList<ASTNode> body) {
-		this.body = body;
+		this.body = adoptAll(body);
 	}
 	@Override
 	public String getNodeLabel() {
 		return "Stylesheet";
 	}
+	/*
+	 Returns the body itself, not a copy: transforms may remove children through it.
+	 */
 	@Override
 	public ArrayList<ASTNode> getChildren() {
 		return this.body;
 	}
 	@Override
+	public int getChildCount() {
+		return body.size();
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		return body.get(index);
+	}
+	@Override
 	public ASTNode addChild(ASTNode child) {
-	    	body.add(child);
+	    	body.add(adopt(child));
+	    	frameSizes = null;
 	    	return this;
 	}
 	@Override
 	public ASTNode removeChild(ASTNode child) {
 		body.remove(child);
+		release(child);
+		frameSizes = null;
 		return this;
 	}
-
-	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		Stylesheet that = (Stylesheet) o;
-		return Objects.equals(body, that.body);
+	/*
+	 Replaces the statements from index from up to index to by the given ones, which move here from
+	 the tree they were in: for an editor that parses part of the source again, or to join the trees
+	 of parts that were parsed on their own.
+	 */
+	public void replaceChildren(int from, int to, List<? extends ASTNode> children) {
+		List<ASTNode> removed = body.subList(from, to);
+		removed.forEach(this::release);
+		removed.clear();
+		for (ASTNode child : children)
+			take(child);
+		body.addAll(from, children);
+		invalidateHash();
+		frameSizes = null;
 	}
 
 	@Override
-	public int hashCode() {
-
-		return Objects.hash(body);
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitStylesheet(this, context);
 	}
 }
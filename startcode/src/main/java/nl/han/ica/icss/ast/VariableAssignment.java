@@ -1,8 +1,5 @@
 package nl.han.ica.icss.ast;
 
-import java.util.ArrayList;
-import java.util.Objects;
-
 /**
  * An assignment binds a expression to an identifier.
  *
@@ -12,6 +9,9 @@ public class VariableAssignment extends ASTNode {
 	public VariableReference name;
 	public Expression expression;
 
+	//Set by the LivenessAnalysis: no reference can read the value, so evaluating it can be skipped
+	public boolean unused;
+
 	@Override
 	public String getNodeLabel() {
 		return "VariableAssignment (" + name.name + ")";
@@ -20,37 +20,27 @@ public class VariableAssignment extends ASTNode {
 	@Override
 	public ASTNode addChild(ASTNode child) {
 		if(name == null) {
-			name = (VariableReference) child;
+			name = adopt((VariableReference) child);
 		} else if(expression == null) {
-			expression = (Expression) child;
+			expression = adopt((Expression) child);
 		}
-
 		return this;
 	}
+	public void setExpression(Expression expression) {
+		this.expression = adopt(expression);
+	}
 
 	@Override
-	public ArrayList<ASTNode> getChildren() {
-
-		ArrayList<ASTNode> children = new ArrayList<>();
-		if(name != null)
-			children.add(name);
-		if(expression != null)
-			children.add(expression);
-		return children;
+	public int getChildCount() {
+		return countChildren(name, expression);
 	}
-
 	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		VariableAssignment that = (VariableAssignment) o;
-		return Objects.equals(name, that.name) &&
-				Objects.equals(expression, that.expression);
+	public ASTNode getChild(int index) {
+		return childAt(index, name, expression);
 	}
 
 	@Override
-	public int hashCode() {
-		return Objects.hash(name, expression);
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitVariableAssignment(this, context);
 	}
 }
@@ -4,30 +4,50 @@ import java.util.Objects;
 
 public class VariableReference extends Expression {
 
+	//Depth and slot of a reference to a variable that is not assigned before it
+	public static final int UNRESOLVED = -1;
+
 	public String name;
-	
+
+	//Where the variable lives, set by the Resolver: slot in the frame of the scope at this depth
+	public int depth = UNRESOLVED;
+	public int slot = UNRESOLVED;
+
 	public VariableReference(String name) {
 		super();
 		this.name = name;
 	}
 
+	public void bind(int depth, int slot) {
+		this.depth = depth;
+		this.slot = slot;
+	}
+
+	public void unbind() {
+		bind(UNRESOLVED, UNRESOLVED);
+	}
+
+	public boolean isResolved() {
+		return depth != UNRESOLVED;
+	}
+
 	@Override
 	public String getNodeLabel() {
 		return "VariableReference (" + name + ")";
 	}
 
 	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		VariableReference that = (VariableReference) o;
-		return Objects.equals(name, that.name);
+	protected int payloadHash() {
+		return Objects.hashCode(name);
 	}
 
 	@Override
-	public int hashCode() {
+	protected boolean payloadEquals(ASTNode other) {
+		return Objects.equals(name, ((VariableReference) other).name);
+	}
 
-		return Objects.hash(name);
+	@Override
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitVariableReference(this, context);
 	}
 }
@@ -0,0 +1,166 @@
+package nl.han.ica.icss.ast.arena;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Expression;
+import nl.han.ica.icss.ast.Stylesheet;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Diagnostic;
+import nl.han.ica.icss.checker.Diagnostics;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the format of ASTWriter back into an AST. Literals come from Literals and are shared.
+ */
+public final class ASTReader {
+
+    private static final Diagnostic.Severity[] SEVERITIES = Diagnostic.Severity.values();
+    private static final ExpressionType[] TYPES = ExpressionType.values();
+
+    private final ByteBuffer buffer;
+    private String[] strings;
+    private ASTNode[] nodes;
+    private int nodeCount;
+
+    private ASTReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public static AST read(Path path) throws IOException {
+        return read(path, new Diagnostics());
+    }
+
+    /**
+     * Maps the file and reads the AST from it. The stored diagnostics are added to the given ones.
+     * @throws IOException when the file cannot be read, is not in this format, has another version, or is truncated or damaged
+     */
+    public static AST read(Path path, Diagnostics diagnostics) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), diagnostics);
+        }
+    }
+
+    public static AST read(ByteBuffer buffer) throws IOException {
+        return read(buffer, new Diagnostics());
+    }
+
+    public static AST read(ByteBuffer buffer, Diagnostics diagnostics) throws IOException {
+        try {
+            return new ASTReader(buffer).readAST(diagnostics);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated AST file", e);
+        } catch (RuntimeException e) {
+            //Whatever the bytes are, a damaged file must not end the compile, see Compiler.readCache
+            throw new IOException("Corrupt AST file", e);
+        }
+    }
+
+    private AST readAST(Diagnostics diagnostics) throws IOException {
+        if (buffer.remaining() < 6 || buffer.getInt() != ASTWriter.MAGIC)
+            throw new IOException("Not an AST file");
+        short version = buffer.getShort();
+        if (version != ASTWriter.VERSION)
+            throw new IOException("AST file version " + version + ", expected " + ASTWriter.VERSION);
+
+        strings = new String[readCount()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[readCount()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        nodes = new ASTNode[readCount()];
+        AST ast = nodes.length == 0 ? new AST() : new AST((Stylesheet) readNodes());
+
+        int diagnosticCount = readCount();
+        for (int i = 0; i < diagnosticCount; i++) {
+            int node = readVarint();
+            Diagnostic.Severity severity = SEVERITIES[buffer.get()];
+            diagnostics.add(new Diagnostic(node == 0 ? null : nodes[node - 1], severity, strings[readVarint()]));
+        }
+        return ast;
+    }
+
+    /*
+     The nodes are in pre-order, so every node is the next child of the innermost node that still
+     misses children. An explicit stack instead of recursion: a deeply nested file cannot overflow
+     the call stack.
+     */
+    private ASTNode readNodes() throws IOException {
+        ASTNode[] parents = new ASTNode[16];
+        int[] missing = new int[16];
+        int top = -1;
+        ASTNode root = null;
+        while (nodeCount < nodes.length) {
+            NodeKind kind = NodeKind.of(buffer.get());
+            int childCount = readCount();
+            String name = null;
+            int value = 0;
+            if (kind.isNamed())
+                name = strings[readVarint()];
+            else if (kind.isLiteral())
+                value = unzigzag(readVarint());
+            ExpressionType type = kind.isExpression() && !kind.isLiteral() ? TYPES[buffer.get()] : null;
+
+            ASTNode node = NodeCodec.newNode(kind, value, name);
+            if (type != null)
+                ((Expression) node).type = type;
+            nodes[nodeCount++] = node;
+
+            if (top >= 0) {
+                parents[top].addChild(node);
+                if (--missing[top] == 0)
+                    top--;
+            } else if (root == null) {
+                root = node;
+            } else {
+                throw new IOException("Corrupt AST file: more than one root");
+            }
+            if (childCount > 0) {
+                if (++top == parents.length) {
+                    parents = Arrays.copyOf(parents, top * 2);
+                    missing = Arrays.copyOf(missing, top * 2);
+                }
+                parents[top] = node;
+                missing[top] = childCount;
+            }
+        }
+        if (top >= 0)
+            throw new IOException("Corrupt AST file: missing nodes");
+        return root;
+    }
+
+    /*
+     A count or length: every element takes at least one byte, so a count above the bytes that are
+     left is damage, and is refused before an array of that size is allocated.
+     */
+    private int readCount() throws IOException {
+        int count = readVarint();
+        if (count < 0 || count > buffer.remaining())
+            throw new IOException("Corrupt AST file: count " + Integer.toUnsignedString(count));
+        return count;
+    }
+
+    private int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
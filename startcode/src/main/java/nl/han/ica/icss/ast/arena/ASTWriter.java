@@ -0,0 +1,163 @@
+package nl.han.ica.icss.ast.arena;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Expression;
+import nl.han.ica.icss.checker.Diagnostic;
+import nl.han.ica.icss.checker.Diagnostics;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.IdentityHashMap;
+
+/**
+ * Writes an AST and the Diagnostics the Checker found for it in a compact binary format that
+ * ASTReader turns back into an equal AST. Meant for caching checked trees on disk.
+ *
+ * Layout (big-endian, "varint" is an unsigned LEB128 int):
+ * <pre>
+ *   int    MAGIC
+ *   short  VERSION
+ *   varint string count, then per string: varint byte length, UTF-8 bytes
+ *   varint node count
+ *   nodes in pre-order, per node:
+ *     byte   NodeKind ordinal
+ *     varint number of children (null children are left out)
+ *     varint string index of the name, for the named kinds
+ *     varint zigzag-encoded value, for the literal kinds
+ *     byte   ExpressionType ordinal, for the other expressions (literals know their type)
+ *   varint diagnostic count
+ *   diagnostics in order, per diagnostic:
+ *     varint 1 + pre-order index of the node, 0 for a node that is not in the tree
+ *     byte   Severity ordinal
+ *     varint string index of the message
+ * </pre>
+ * Names and messages share one string table, each distinct string is stored once.
+ */
+public final class ASTWriter {
+
+    public static final int MAGIC = 0x49435342; //"ICSB"
+
+    /**
+     * Increment on every change of the layout, or of what the Checker stores in the tree:
+     * readers refuse other versions, so stale caches are ignored instead of misread.
+     */
+    public static final short VERSION = 3;
+
+    private final ConstantPool strings = new ConstantPool();
+    private final ByteArrayOutputStream nodes = new ByteArrayOutputStream(4096);
+    private int nodeCount;
+
+    //Pre-order index of every node with a diagnostic
+    private final IdentityHashMap<ASTNode, Integer> diagnosed = new IdentityHashMap<>();
+
+    private ASTWriter() { }
+
+    public static void write(AST ast, OutputStream out) throws IOException {
+        write(ast, new Diagnostics(), out);
+    }
+
+    public static void write(AST ast, Diagnostics diagnostics, OutputStream out) throws IOException {
+        ASTWriter writer = new ASTWriter();
+        for (Diagnostic diagnostic : diagnostics.getAll())
+            writer.diagnosed.put(diagnostic.getNode(), -1);
+        writer.writeNode(ast.root);
+        writer.writeDiagnostics(diagnostics);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(256);
+        writeInt(header, MAGIC);
+        header.write(VERSION >>> 8);
+        header.write(VERSION & 0xff);
+        writeVarint(header, writer.strings.size());
+        for (int i = 0; i < writer.strings.size(); i++) {
+            byte[] bytes = writer.strings.get(i).getBytes(StandardCharsets.UTF_8);
+            writeVarint(header, bytes.length);
+            header.write(bytes);
+        }
+        writeVarint(header, writer.nodeCount);
+
+        header.writeTo(out);
+        writer.nodes.writeTo(out);
+    }
+
+    public static void write(AST ast, Path path) throws IOException {
+        write(ast, new Diagnostics(), path);
+    }
+
+    /**
+     * Writes to a temporary file next to the target and moves it in place, so a concurrent reader
+     * never sees half a file.
+     */
+    public static void write(AST ast, Diagnostics diagnostics, Path path) throws IOException {
+        Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                write(ast, diagnostics, out);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void writeNode(ASTNode node) {
+        NodeKind kind = NodeCodec.kindOf(node);
+        int childCount = 0;
+        for (int i = 0; i < node.getChildCount(); i++) {
+            if (node.getChild(i) != null)
+                childCount++;
+        }
+
+        if (diagnosed.containsKey(node))
+            diagnosed.put(node, nodeCount);
+        nodeCount++;
+        nodes.write(kind.ordinal());
+        writeVarint(nodes, childCount);
+        if (kind.isNamed())
+            writeVarint(nodes, strings.intern(NodeCodec.nameOf(node, kind)));
+        else if (kind.isLiteral())
+            writeVarint(nodes, zigzag(NodeCodec.valueOf(node, kind)));
+        if (kind.isExpression() && !kind.isLiteral())
+            nodes.write(((Expression) node).type.ordinal());
+
+        for (int i = 0; i < node.getChildCount(); i++) {
+            ASTNode child = node.getChild(i);
+            if (child != null)
+                writeNode(child);
+        }
+    }
+
+    private void writeDiagnostics(Diagnostics diagnostics) {
+        writeVarint(nodes, diagnostics.size());
+        for (Diagnostic diagnostic : diagnostics.getAll()) {
+            writeVarint(nodes, diagnosed.get(diagnostic.getNode()) + 1);
+            nodes.write(diagnostic.getSeverity().ordinal());
+            writeVarint(nodes, strings.intern(diagnostic.getMessage()));
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
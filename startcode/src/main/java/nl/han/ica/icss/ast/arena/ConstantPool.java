@@ -0,0 +1,34 @@
+package nl.han.ica.icss.ast.arena;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The distinct names of an AST file (selectors, properties, variables), each stored once.
+ */
+public final class ConstantPool {
+
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final HashMap<String, Integer> indices = new HashMap<>();
+
+    /**
+     * @return the index of the string, adding it when it is not in the pool yet
+     */
+    public int intern(String string) {
+        Integer index = indices.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.add(string);
+            indices.put(string, index);
+        }
+        return index;
+    }
+
+    public String get(int index) {
+        return strings.get(index);
+    }
+
+    public int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,114 @@
+package nl.han.ica.icss.ast.arena;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+/**
+ * The NodeKind, name and value of a node as ASTWriter stores them, and the node ASTReader makes of them.
+ */
+final class NodeCodec {
+
+    private static final ASTVisitor<NodeKind, Void> KIND = new ASTVisitor<>() {
+        @Override
+        public NodeKind visitNode(ASTNode node, Void context) {
+            throw new IllegalArgumentException("No node kind for " + node.getClass().getName());
+        }
+        @Override
+        public NodeKind visitStylesheet(Stylesheet node, Void context) { return NodeKind.STYLESHEET; }
+        @Override
+        public NodeKind visitStylerule(Stylerule node, Void context) { return NodeKind.STYLERULE; }
+        @Override
+        public NodeKind visitTagSelector(TagSelector node, Void context) { return NodeKind.TAG_SELECTOR; }
+        @Override
+        public NodeKind visitIdSelector(IdSelector node, Void context) { return NodeKind.ID_SELECTOR; }
+        @Override
+        public NodeKind visitClassSelector(ClassSelector node, Void context) { return NodeKind.CLASS_SELECTOR; }
+        @Override
+        public NodeKind visitDeclaration(Declaration node, Void context) { return NodeKind.DECLARATION; }
+        @Override
+        public NodeKind visitPropertyName(PropertyName node, Void context) { return NodeKind.PROPERTY_NAME; }
+        @Override
+        public NodeKind visitVariableAssignment(VariableAssignment node, Void context) { return NodeKind.VARIABLE_ASSIGNMENT; }
+        @Override
+        public NodeKind visitVariableReference(VariableReference node, Void context) { return NodeKind.VARIABLE_REFERENCE; }
+        @Override
+        public NodeKind visitIfClause(IfClause node, Void context) { return NodeKind.IF_CLAUSE; }
+        @Override
+        public NodeKind visitElseClause(ElseClause node, Void context) { return NodeKind.ELSE_CLAUSE; }
+        @Override
+        public NodeKind visitPixelLiteral(PixelLiteral node, Void context) { return NodeKind.PIXEL_LITERAL; }
+        @Override
+        public NodeKind visitPercentageLiteral(PercentageLiteral node, Void context) { return NodeKind.PERCENTAGE_LITERAL; }
+        @Override
+        public NodeKind visitScalarLiteral(ScalarLiteral node, Void context) { return NodeKind.SCALAR_LITERAL; }
+        @Override
+        public NodeKind visitColorLiteral(ColorLiteral node, Void context) { return NodeKind.COLOR_LITERAL; }
+        @Override
+        public NodeKind visitBoolLiteral(BoolLiteral node, Void context) { return NodeKind.BOOL_LITERAL; }
+        @Override
+        public NodeKind visitAddOperation(AddOperation node, Void context) { return NodeKind.ADD_OPERATION; }
+        @Override
+        public NodeKind visitSubtractOperation(SubtractOperation node, Void context) { return NodeKind.SUBTRACT_OPERATION; }
+        @Override
+        public NodeKind visitMultiplyOperation(MultiplyOperation node, Void context) { return NodeKind.MULTIPLY_OPERATION; }
+    };
+
+    private NodeCodec() { }
+
+    static NodeKind kindOf(ASTNode node) {
+        return node.accept(KIND, null);
+    }
+
+    static String nameOf(ASTNode node, NodeKind kind) {
+        switch (kind) {
+            case TAG_SELECTOR: return ((TagSelector) node).tag;
+            case ID_SELECTOR: return ((IdSelector) node).id;
+            case CLASS_SELECTOR: return ((ClassSelector) node).cls;
+            case PROPERTY_NAME: return ((PropertyName) node).name;
+            default: return ((VariableReference) node).name;
+        }
+    }
+
+    //The value of a literal as stored in a payload, 0 for the other kinds
+    static int valueOf(ASTNode node, NodeKind kind) {
+        switch (kind) {
+            case PIXEL_LITERAL: return ((PixelLiteral) node).value;
+            case PERCENTAGE_LITERAL: return ((PercentageLiteral) node).value;
+            case SCALAR_LITERAL: return ((ScalarLiteral) node).value;
+            case COLOR_LITERAL: return ((ColorLiteral) node).rgba;
+            case BOOL_LITERAL: return ((BoolLiteral) node).value ? 1 : 0;
+            default: return 0;
+        }
+    }
+
+    //A node without children; literals come from Literals
+    static ASTNode newNode(NodeKind kind, int value, String name) {
+        switch (kind) {
+            case STYLESHEET: return new Stylesheet();
+            case STYLERULE: return new Stylerule();
+            case TAG_SELECTOR: return new TagSelector(name);
+            case ID_SELECTOR: return new IdSelector(name);
+            case CLASS_SELECTOR: return new ClassSelector(name);
+            case DECLARATION: return new Declaration();
+            case PROPERTY_NAME: return new PropertyName(name);
+            case VARIABLE_ASSIGNMENT: return new VariableAssignment();
+            case VARIABLE_REFERENCE: return new VariableReference(name);
+            case IF_CLAUSE: return new IfClause();
+            case ELSE_CLAUSE: return new ElseClause();
+            case PIXEL_LITERAL: return Literals.pixel(value);
+            case PERCENTAGE_LITERAL: return Literals.percentage(value);
+            case SCALAR_LITERAL: return Literals.scalar(value);
+            case COLOR_LITERAL: return Literals.color(value);
+            case BOOL_LITERAL: return Literals.bool(value != 0);
+            case ADD_OPERATION: return new AddOperation();
+            case SUBTRACT_OPERATION: return new SubtractOperation();
+            default: return new MultiplyOperation();
+        }
+    }
+}
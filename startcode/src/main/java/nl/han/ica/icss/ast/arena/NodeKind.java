@@ -0,0 +1,58 @@
+package nl.han.ica.icss.ast.arena;
+
+/**
+ * Kind of a node in an AST file, one per concrete class in nl.han.ica.icss.ast.
+ */
+public enum NodeKind {
+    STYLESHEET,
+    STYLERULE,
+    TAG_SELECTOR(true),
+    ID_SELECTOR(true),
+    CLASS_SELECTOR(true),
+    DECLARATION,
+    PROPERTY_NAME(true),
+    VARIABLE_ASSIGNMENT,
+    VARIABLE_REFERENCE(true),
+    IF_CLAUSE,
+    ELSE_CLAUSE,
+    PIXEL_LITERAL,
+    PERCENTAGE_LITERAL,
+    SCALAR_LITERAL,
+    COLOR_LITERAL,
+    BOOL_LITERAL,
+    ADD_OPERATION,
+    SUBTRACT_OPERATION,
+    MULTIPLY_OPERATION;
+
+    private static final NodeKind[] VALUES = values();
+
+    private final boolean named;
+
+    NodeKind() {
+        this(false);
+    }
+
+    NodeKind(boolean named) {
+        this.named = named;
+    }
+
+    /**
+     * True when the payload is the constant pool index of a name, false when it is the value itself
+     * (the number of a literal, RGBA of a colour, 1 or 0 for a boolean) or unused.
+     */
+    public boolean isNamed() {
+        return named;
+    }
+
+    public boolean isExpression() {
+        return this == VARIABLE_REFERENCE || ordinal() >= PIXEL_LITERAL.ordinal();
+    }
+
+    public boolean isLiteral() {
+        return ordinal() >= PIXEL_LITERAL.ordinal() && ordinal() <= BOOL_LITERAL.ordinal();
+    }
+
+    static NodeKind of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
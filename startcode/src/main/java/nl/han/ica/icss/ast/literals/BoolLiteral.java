@@ -1,15 +1,19 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
-import java.util.Objects;
+import nl.han.ica.icss.ast.types.ExpressionType;
 
 public class BoolLiteral extends Literal {
-    public boolean value;
+    public final boolean value;
 
     public BoolLiteral(boolean value) {
+        super(ExpressionType.BOOL);
         this.value = value;
     }
     public BoolLiteral(String text) {
+        super(ExpressionType.BOOL);
         this.value = text.equals("TRUE");
     }
     @Override
@@ -19,16 +23,17 @@ public class BoolLiteral extends Literal {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        BoolLiteral that = (BoolLiteral) o;
-        return value == that.value;
+    protected int payloadHash() {
+        return Boolean.hashCode(value);
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected boolean payloadEquals(ASTNode other) {
+        return value == ((BoolLiteral) other).value;
+    }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitBoolLiteral(this, context);
     }
 }
@@ -1,31 +1,99 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.types.ExpressionType;
 
-import java.util.Objects;
-
+/**
+ * A colour, packed in one int as RGBA: red in the highest byte, alpha in the lowest.
+ * ICSS has no transparency, so colours from source are always opaque. The text form is
+ * only made on request, so #FFF and #ffffff are the same colour.
+ */
 public class ColorLiteral extends Literal {
-    public String value;
+    public static final int OPAQUE = 0xff;
+
+    public final int rgba;
+
+    public ColorLiteral(int rgba) {
+        super(ExpressionType.COLOR);
+        this.rgba = rgba;
+    }
+    public ColorLiteral(String text) {
+        super(ExpressionType.COLOR);
+        this.rgba = parse(text);
+    }
+
+    public int getRed() {
+        return rgba >>> 24;
+    }
+    public int getGreen() {
+        return (rgba >>> 16) & 0xff;
+    }
+    public int getBlue() {
+        return (rgba >>> 8) & 0xff;
+    }
+    public int getAlpha() {
+        return rgba & 0xff;
+    }
 
-    public ColorLiteral(String value) {
-        this.value = value;
+    /**
+     * The colour as #rrggbb in lower case, or #rrggbbaa when it is not opaque.
+     */
+    public String getText() {
+        if (getAlpha() == OPAQUE)
+            return String.format("#%06x", rgba >>> 8);
+        return String.format("#%08x", rgba);
     }
+
+    /**
+     * Parses #rgb or #rrggbb, the forms of the COLOR token, to an opaque RGBA value.
+     */
+    public static int parse(CharSequence text) {
+        int length = text.length();
+        if ((length != 4 && length != 7) || text.charAt(0) != '#')
+            throw new IllegalArgumentException("Not a colour: " + text);
+        int hex = 0;
+        for (int i = 1; i < length; i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0)
+                throw new IllegalArgumentException("Not a colour: " + text);
+            hex = hex << 4 | digit;
+        }
+        return fromHex(hex, length - 1);
+    }
+
+    /**
+     * Turns the value of the 3 or 6 hex digits of a colour into an opaque RGBA value.
+     * With 3 digits every digit is doubled, as in CSS: #f80 is #ff8800.
+     */
+    public static int fromHex(int hex, int digits) {
+        if (digits == 3) {
+            int r = hex >> 8 & 0xf;
+            int g = hex >> 4 & 0xf;
+            int b = hex & 0xf;
+            hex = (r * 0x11) << 16 | (g * 0x11) << 8 | b * 0x11;
+        }
+        return hex << 8 | OPAQUE;
+    }
+
     @Override
     public String getNodeLabel() {
-        return "Color literal (" + value + ")";
+        return "Color literal (" + getText() + ")";
     }
 
-
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        ColorLiteral that = (ColorLiteral) o;
-        return Objects.equals(value, that.value);
+    protected int payloadHash() {
+        return rgba;
     }
+
     @Override
-    public int hashCode() {
+    protected boolean payloadEquals(ASTNode other) {
+        return rgba == ((ColorLiteral) other).rgba;
+    }
 
-        return Objects.hash(value);
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitColorLiteral(this, context);
     }
 }
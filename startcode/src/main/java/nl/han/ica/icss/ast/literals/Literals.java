@@ -0,0 +1,70 @@
+package nl.han.ica.icss.ast.literals;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical literal instances, so equal values share one object instead of each getting its own.
+ * Covers TRUE and FALSE, small values of every unit, and colours up to a fixed number of distinct ones.
+ * Anything outside the cache gets a new object.
+ *
+ * A literal from this class may appear at many places in many trees at once. Its value is final;
+ * do not change its type either. Use the constructor when a node of your own is needed.
+ */
+public final class Literals {
+
+    public static final BoolLiteral TRUE = new BoolLiteral(true);
+    public static final BoolLiteral FALSE = new BoolLiteral(false);
+
+    static final int MIN_CACHED = -128;
+    static final int MAX_CACHED = 1024;
+    static final int MAX_CACHED_COLORS = 4096;
+
+    private static final PixelLiteral[] PIXELS = new PixelLiteral[MAX_CACHED - MIN_CACHED + 1];
+    private static final PercentageLiteral[] PERCENTAGES = new PercentageLiteral[MAX_CACHED - MIN_CACHED + 1];
+    private static final ScalarLiteral[] SCALARS = new ScalarLiteral[MAX_CACHED - MIN_CACHED + 1];
+    private static final ConcurrentHashMap<Integer, ColorLiteral> COLORS = new ConcurrentHashMap<>();
+
+    static {
+        for (int value = MIN_CACHED; value <= MAX_CACHED; value++) {
+            PIXELS[value - MIN_CACHED] = new PixelLiteral(value);
+            PERCENTAGES[value - MIN_CACHED] = new PercentageLiteral(value);
+            SCALARS[value - MIN_CACHED] = new ScalarLiteral(value);
+        }
+    }
+
+    private Literals() { }
+
+    public static PixelLiteral pixel(int value) {
+        return isCached(value) ? PIXELS[value - MIN_CACHED] : new PixelLiteral(value);
+    }
+
+    public static PercentageLiteral percentage(int value) {
+        return isCached(value) ? PERCENTAGES[value - MIN_CACHED] : new PercentageLiteral(value);
+    }
+
+    public static ScalarLiteral scalar(int value) {
+        return isCached(value) ? SCALARS[value - MIN_CACHED] : new ScalarLiteral(value);
+    }
+
+    public static BoolLiteral bool(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /*
+     The first MAX_CACHED_COLORS distinct colours are kept, later ones are not cached.
+     */
+    public static ColorLiteral color(int rgba) {
+        ColorLiteral cached = COLORS.get(rgba);
+        if (cached != null)
+            return cached;
+        ColorLiteral literal = new ColorLiteral(rgba);
+        if (COLORS.size() >= MAX_CACHED_COLORS)
+            return literal;
+        cached = COLORS.putIfAbsent(rgba, literal);
+        return cached != null ? cached : literal;
+    }
+
+    private static boolean isCached(int value) {
+        return value >= MIN_CACHED && value <= MAX_CACHED;
+    }
+}
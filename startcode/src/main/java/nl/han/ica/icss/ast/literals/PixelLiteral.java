@@ -1,16 +1,19 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
-
-import java.util.Objects;
+import nl.han.ica.icss.ast.types.ExpressionType;
 
 public class PixelLiteral extends Literal {
-    public int value;
+    public final int value;
 
     public PixelLiteral(int value) {
+        super(ExpressionType.PIXEL);
         this.value = value;
     }
     public PixelLiteral(String text) {
+        super(ExpressionType.PIXEL);
         this.value = Integer.parseInt(text.substring(0, text.length() - 2));
     }
     @Override
@@ -19,16 +22,17 @@ public class PixelLiteral extends Literal {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        PixelLiteral that = (PixelLiteral) o;
-        return value == that.value;
+    protected int payloadHash() {
+        return value;
+    }
+
+    @Override
+    protected boolean payloadEquals(ASTNode other) {
+        return value == ((PixelLiteral) other).value;
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitPixelLiteral(this, context);
     }
 }
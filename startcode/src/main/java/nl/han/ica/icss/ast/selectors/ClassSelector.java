@@ -1,5 +1,7 @@
 package nl.han.ica.icss.ast.selectors;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Selector;
 
 import java.util.Objects;
@@ -21,15 +23,17 @@ public class ClassSelector extends Selector {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        ClassSelector that = (ClassSelector) o;
-        return Objects.equals(cls, that.cls);
+    protected int payloadHash() {
+        return Objects.hashCode(cls);
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(cls);
+    protected boolean payloadEquals(ASTNode other) {
+        return Objects.equals(cls, ((ClassSelector) other).cls);
+    }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitClassSelector(this, context);
     }
 }
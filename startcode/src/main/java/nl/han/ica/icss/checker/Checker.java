@@ -1,7 +1,6 @@
 package nl.han.ica.icss.checker;
 
 import nl.han.ica.icss.ast.*;
-import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.*;
 import nl.han.ica.icss.ast.types.ExpressionType;
 
@@ -10,205 +9,321 @@ import java.util.*;
 public class Checker {
 
 
-    private LinkedList<HashMap<String, ExpressionType>> safedepositOfVariableAssignments;
+    // types van de variabelen per scope diepte, de Resolver heeft de slots al uitgedeeld
+    private ExpressionType[][] frames;
+    private int depth;
+    private Diagnostics diagnostics;
 
-    //Ik heb een Map gemaakt zodat een width bijvoorbeeld geen kleurcode mag enzo. anders moest ik allemaal if clauses maken tijdens het checken.
-    //dit is een veel beter idee vond ik :)
-    private static final Map<String, Set<Class<? extends Literal>>> ALLOWED_TYPES_FOR_PROPERTY = Map.of(
-            "width", Set.of(ScalarLiteral.class, PixelLiteral.class, PercentageLiteral.class),
-            "height", Set.of(ScalarLiteral.class, PixelLiteral.class, PercentageLiteral.class),
-            "color", Set.of(ColorLiteral.class),
-            "background-color", Set.of(ColorLiteral.class),
-            "display", Set.of(BoolLiteral.class)
-    );
+    // welke types elke property mag hebben
+    private final PropertySchema schema;
+
+    // als dit niet null is: de types van de globale variabelen die gelezen worden, op naam (null = niet gedefinieerd)
+    private Map<String, ExpressionType> globalReads;
+
+    // visitor voor de statements: stylerules, declaraties, variable assignments en if clauses
+    private final ASTVisitor<Void, Void> statementChecker = new ASTVisitor<>() {
+        @Override
+        public Void visitStylerule(Stylerule rule, Void context) {
+            checkStylerule(rule);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment assignment, Void context) {
+            checkVariableAssignment(assignment);
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration declaration, Void context) {
+            checkDeclaration(declaration);
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause ifClause, Void context) {
+            checkIfClause(ifClause);
+            return null;
+        }
+    };
+
+    // visitor die het type van een expressie bepaalt
+    private final ASTVisitor<ExpressionType, Void> typeChecker = new ASTVisitor<>() {
+        @Override
+        public ExpressionType visitNode(ASTNode node, Void context) {
+            return ExpressionType.UNDEFINED;
+        }
+
+        @Override
+        public ExpressionType visitLiteral(Literal literal, Void context) {
+            return literal.type;
+        }
+
+        @Override
+        public ExpressionType visitVariableReference(VariableReference ref, Void context) {
+            return checkVariableReference(ref);
+        }
+
+        @Override
+        public ExpressionType visitAddOperation(AddOperation op, Void context) {
+            return checkAdditiveOperation(op);
+        }
+
+        @Override
+        public ExpressionType visitSubtractOperation(SubtractOperation op, Void context) {
+            return checkAdditiveOperation(op);
+        }
+
+        @Override
+        public ExpressionType visitMultiplyOperation(MultiplyOperation op, Void context) {
+            return checkMultiplyOperation(op);
+        }
+    };
 
     public Checker() {
-        safedepositOfVariableAssignments = new LinkedList<>();
+        this(PropertySchema.get());
     }
 
-    public void check(AST ast) {
-        safedepositOfVariableAssignments.push(new HashMap<>());
+    public Checker(PropertySchema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * Checks the AST and returns what was found. Besides binding the variable references (see Resolver)
+     * it only changes the tree by recording the type of every expression that is not a literal.
+     */
+    public Diagnostics check(AST ast) {
+        diagnostics = new Diagnostics();
+        Resolver.resolve(ast);
+        frames = newFrames(ast.root.frameSizes);
+        depth = -1;
+        enterScope();
         checkStylesheet(ast.root);
+        exitScope();
+        return diagnostics;
+    }
+
+    /**
+     * Same as check, but the stylerules are checked concurrently, on the fork-join pool of the caller
+     * or else the common pool. The top-level variable assignments are checked first, in order; every
+     * rule then gets a snapshot of the global variable types at its position. A rule only writes to its
+     * own nodes, so the rules can share the tree. The diagnostics are those of check, in the same order.
+     */
+    public Diagnostics checkParallel(AST ast) {
+        Resolver.resolve(ast);
+        int[] frameSizes = ast.root.frameSizes;
+        List<ASTNode> statements = ast.root.body;
+        Diagnostics[] found = new Diagnostics[statements.size()];
+        ExpressionType[][] globalsAt = new ExpressionType[statements.size()][];
+        List<Integer> rules = new ArrayList<>();
+
+        frames = newFrames(frameSizes);
+        depth = -1;
+        enterScope();
+        ExpressionType[] snapshot = null;
+        for (int i = 0; i < statements.size(); i++) {
+            ASTNode statement = statements.get(i);
+            if (statement instanceof Stylerule) {
+                // alleen een nieuwe kopie als er sinds de vorige regel een globale variabele is bijgekomen
+                if (snapshot == null)
+                    snapshot = frames[0].clone();
+                globalsAt[i] = snapshot;
+                rules.add(i);
+            } else {
+                diagnostics = new Diagnostics();
+                statement.accept(statementChecker, null);
+                found[i] = diagnostics;
+                snapshot = null;
+            }
+        }
+        exitScope();
+
+        rules.parallelStream().forEach(i -> found[i] = new Checker(schema).checkStatement(statements.get(i), frameSizes, globalsAt[i], null));
+
+        diagnostics = new Diagnostics();
+        for (Diagnostics statementDiagnostics : found) {
+            diagnostics.addAll(statementDiagnostics);
+        }
+        return diagnostics;
+    }
+
+    /**
+     * Checks one statement of the stylesheet of a resolved AST, given the types of the global variables
+     * at its position. A variable assignment writes its type into globals, a stylerule leaves it alone.
+     * @param reads if not null, gets the type of every global variable the statement reads, by name,
+     *              and null for the names that were not defined
+     */
+    Diagnostics checkStatement(ASTNode statement, int[] frameSizes, ExpressionType[] globals,
+                               Map<String, ExpressionType> reads) {
+        diagnostics = new Diagnostics();
+        frames = newFrames(frameSizes);
+        frames[0] = globals;
+        depth = 0;
+        globalReads = reads;
+        statement.accept(statementChecker, null);
+        globalReads = null;
+        return diagnostics;
+    }
+
+    private static ExpressionType[][] newFrames(int[] frameSizes) {
+        ExpressionType[][] newFrames = new ExpressionType[frameSizes.length][];
+        for (int d = 0; d < frameSizes.length; d++) {
+            newFrames[d] = new ExpressionType[frameSizes[d]];
+        }
+        return newFrames;
     }
 
     // spreekt voor zich. ik check gewoon of het een stylerule is of variableassignment
     private void checkStylesheet(Stylesheet stylesheet) {
-        for (ASTNode child : stylesheet.getChildren()) {
-            if (child instanceof VariableAssignment)
-                checkVariableAssignment((VariableAssignment) child);
-            else if (child instanceof Stylerule)
-                checkStylerule((Stylerule) child);
-        }
+        checkStatements(stylesheet.body);
     }
 
     private void checkStylerule(Stylerule rule) {
-        safedepositOfVariableAssignments.push(new HashMap<>());
-        for (ASTNode child : rule.getChildren()) {
-            if(child instanceof VariableAssignment){
-                checkVariableAssignment((VariableAssignment) child);
-            }
-            if (child instanceof Declaration) {
-                checkDeclaration((Declaration) child);
-            }
-            else if (child instanceof IfClause) {
-                checkIfClause((IfClause) child);
-            }
+        enterScope();
+        checkStatements(rule.body);
+        exitScope();
+    }
+
+    // een nieuwe scope op deze diepte ziet niks van de vorige
+    private void enterScope() {
+        depth++;
+        Arrays.fill(frames[depth], null);
+    }
+
+    private void exitScope() {
+        depth--;
+    }
+
+    private void checkStatements(List<ASTNode> statements) {
+        for (ASTNode statement : statements) {
+            statement.accept(statementChecker, null);
         }
-        safedepositOfVariableAssignments.pop();
     }
 
 
+    // het type wordt op de expressie bewaard, zodat de evaluator en generator het niet opnieuw hoeven te bepalen
     private ExpressionType checkType(Expression expr) {
-        if (expr instanceof PixelLiteral) {
-            return ExpressionType.PIXEL;
-        }
-        if (expr instanceof PercentageLiteral) {
-            return ExpressionType.PERCENTAGE;
-        }
-        if (expr instanceof ScalarLiteral){
-            return ExpressionType.SCALAR;
-        }
-        if (expr instanceof ColorLiteral){
-            return ExpressionType.COLOR;
-        }
-        if (expr instanceof BoolLiteral){
-            return ExpressionType.BOOL;
-        }
-        if (expr instanceof VariableReference){
-            return checkVariableReference((VariableReference) expr);
-        }
-        if (expr instanceof Operation) {
-            return checkOperation((Operation) expr);
-        }
-        return ExpressionType.UNDEFINED;
+        if (expr == null)
+            return ExpressionType.UNDEFINED;
+        ExpressionType type = expr.accept(typeChecker, null);
+        //literals hebben hun type al en worden gedeeld, daar niet naar schrijven
+        if (expr.type != type)
+            expr.type = type;
+        return type;
     }
 
     private ExpressionType checkVariableReference(VariableReference ref) {
-        for (HashMap<String, ExpressionType> scope : safedepositOfVariableAssignments) {
-            if (scope.containsKey(ref.name))
-                return scope.get(ref.name);
-        }
-        ref.setError("Variabele '" + ref.name + "' is niet gedefinierd.");
+        recordGlobalRead(ref);
+        if (ref.isResolved())
+            return frames[ref.depth][ref.slot];
+        diagnostics.error(ref, "Variabele '" + ref.name + "' is niet gedefinierd.");
         return ExpressionType.UNDEFINED;
     }
 
-    private ExpressionType checkOperation(Operation op) {
+    // een niet gebonden naam telt ook: als die later globaal gedefinieerd wordt verandert de uitkomst
+    private void recordGlobalRead(VariableReference ref) {
+        if (globalReads != null && (!ref.isResolved() || ref.depth == 0))
+            globalReads.put(ref.name, ref.isResolved() ? frames[0][ref.slot] : null);
+    }
+
+    private ExpressionType checkAdditiveOperation(Operation op) {
         ExpressionType left = checkType(op.lhs);
         ExpressionType right = checkType(op.rhs);
 
-        if (left == ExpressionType.COLOR || right == ExpressionType.COLOR) {
-            op.setError("Kleuren mogen niet gebruikt worden in operaties.");
+        if (hasColorOperand(op, left, right))
             return ExpressionType.UNDEFINED;
-        }
 
-        if (op instanceof AddOperation || op instanceof SubtractOperation) {
-            if (left != right)
-                op.setError("waarde in " + op.getClass().getSimpleName() + " moeten gelijk zijn.");
-            return left;
-        }
+        if (left != right)
+            diagnostics.error(op, "waarde in " + op.getClass().getSimpleName() + " moeten gelijk zijn.");
+        return left;
+    }
 
-        if (op instanceof MultiplyOperation) {
-            if (!(left == ExpressionType.SCALAR || right == ExpressionType.SCALAR)) {
-                op.setError("Bij vermenigvuldigen moet 1 waarde een scalar zijn.");
-                return ExpressionType.UNDEFINED;
-            }
+    private ExpressionType checkMultiplyOperation(MultiplyOperation op) {
+        ExpressionType left = checkType(op.lhs);
+        ExpressionType right = checkType(op.rhs);
 
-            if (left == ExpressionType.SCALAR){ return right;}
-            if (right == ExpressionType.SCALAR){ return left;}
+        if (hasColorOperand(op, left, right))
+            return ExpressionType.UNDEFINED;
+
+        if (!(left == ExpressionType.SCALAR || right == ExpressionType.SCALAR)) {
+            diagnostics.error(op, "Bij vermenigvuldigen moet 1 waarde een scalar zijn.");
+            return ExpressionType.UNDEFINED;
         }
 
-        return ExpressionType.UNDEFINED;
+        if (left == ExpressionType.SCALAR){ return right;}
+        return left;
+    }
+
+    private boolean hasColorOperand(Operation op, ExpressionType left, ExpressionType right) {
+        if (left == ExpressionType.COLOR || right == ExpressionType.COLOR) {
+            diagnostics.error(op, "Kleuren mogen niet gebruikt worden in operaties.");
+            return true;
+        }
+        return false;
     }
 
 
     private void checkDeclaration(Declaration declaration) {
+        if (schema.allowedTypes(declaration.property.name) == PropertySchema.UNKNOWN) {
+            diagnostics.warning(declaration.property, "Onbekende property '" + declaration.property.name + "'.");
+        }
         if (declaration.expression == null) return;
 
         if (declaration.expression instanceof VariableReference ref) {
-            boolean defined = safedepositOfVariableAssignments.stream().anyMatch(scope -> scope.containsKey(ref.name));
-            if (!defined) {
-                ref.setError("Variabele '" + ref.name + "' is niet gedefinieerd.");
+            if (!ref.isResolved()) {
+                recordGlobalRead(ref);
+                diagnostics.error(ref, "Variabele '" + ref.name + "' is niet gedefinieerd.");
                 return;
             }
         }
 
-        checkType(declaration.expression);
-
-
-        var allowed = ALLOWED_TYPES_FOR_PROPERTY.get(declaration.property.name.toLowerCase());
-        if (allowed == null) return;
+        ExpressionType type = checkType(declaration.expression);
 
-        Literal literal = extractLiteral(declaration.expression);
-        if (literal == null) return;
+        int allowed = schema.allowedTypes(declaration.property.name);
+        if (allowed == PropertySchema.UNKNOWN || type == ExpressionType.UNDEFINED) return;
 
-        if (!allowed.contains(literal.getClass())) {
-            declaration.setError(String.format(
+        if ((allowed & PropertySchema.bit(type)) == 0) {
+            diagnostics.error(declaration, String.format(
                     "Property '%s' verwacht %s, maar kreeg %s.", // nu kan ik error geven voor meerdere type errors zoals : color:10px; en width:#ffffff;
                     declaration.property.name,
                     formatAllowed(allowed),
-                    literal.getClass().getSimpleName()
+                    type.name().toLowerCase()
             ));
         }
     }
 
     private void checkVariableAssignment(VariableAssignment varassin) {
+        // de LivenessAnalysis van de Resolver heeft al bepaald of iemand de waarde leest
+        if (varassin.unused) {
+            diagnostics.warning(varassin, "Variabele '" + varassin.name.name + "' wordt nergens gebruikt.");
+        }
         ExpressionType expresiontype = checkType(varassin.expression);
-        safedepositOfVariableAssignments.peek().put(varassin.name.name, expresiontype);
+        frames[varassin.name.depth][varassin.name.slot] = expresiontype;
     }
 
     private void checkIfClause(IfClause ifClause) {
-        safedepositOfVariableAssignments.push(new HashMap<>());
         ExpressionType condType = checkType(ifClause.conditionalExpression);
         if (condType != ExpressionType.BOOL) {
-            ifClause.setError("If clause conditie moet boolean zijn.");
+            diagnostics.error(ifClause, "If clause conditie moet boolean zijn.");
         }
 
-        for (ASTNode child : ifClause.body) {
-            if (child instanceof VariableAssignment){
-                checkVariableAssignment((VariableAssignment) child);
-            }
-            else if (child instanceof Declaration) {
-                checkDeclaration((Declaration) child);
-            }
-            else if(child instanceof IfClause){
-                checkIfClause((IfClause) child);
-            }
-        }
+        enterScope();
+        checkStatements(ifClause.body);
+        exitScope();
 
         if (ifClause.elseClause != null) {
-            safedepositOfVariableAssignments.push(new HashMap<>());
-            for (ASTNode child : ifClause.elseClause.body) {
-                if (child instanceof VariableAssignment){
-                    checkVariableAssignment((VariableAssignment) child);
-                }
-                if (child instanceof Declaration) {
-                    checkDeclaration((Declaration) child);
-                }
-                else if(child instanceof IfClause){
-                    checkIfClause((IfClause) child);
-                }
-
-            }
-            safedepositOfVariableAssignments.pop();
+            enterScope();
+            checkStatements(ifClause.elseClause.body);
+            exitScope();
         }
-        safedepositOfVariableAssignments.pop();
     }
 
 
-    private Literal extractLiteral(Expression expr) {
-        if (expr instanceof Literal) return (Literal) expr;
-        if (expr instanceof Operation) {
-            Literal left = extractLiteral(((Operation)expr).lhs);
-            if (left != null) return left;
-            return extractLiteral(((Operation)expr).rhs);
-        }
-        return null;
-    }
-
-    private String formatAllowed(Set<Class<? extends Literal>> allowed) {
+    private String formatAllowed(int allowed) {
         return String.join(" of ",
-                allowed.stream()
-                        .map(c -> c.getSimpleName().replace("Literal", "").toLowerCase())
+                Arrays.stream(ExpressionType.values())
+                        .filter(type -> (allowed & PropertySchema.bit(type)) != 0)
+                        .map(type -> type.name().toLowerCase())
                         .toList());
     }
 }
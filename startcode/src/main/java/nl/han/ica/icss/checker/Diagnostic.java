@@ -0,0 +1,45 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.ASTNode;
+
+/**
+ * A problem the Checker found, with the node it is about.
+ */
+public final class Diagnostic {
+
+	public enum Severity {
+		ERROR,
+		WARNING
+	}
+
+	private final ASTNode node;
+	private final Severity severity;
+	private final String message;
+
+	public Diagnostic(ASTNode node, Severity severity, String message) {
+		this.node = node;
+		this.severity = severity;
+		this.message = message;
+	}
+
+	public ASTNode getNode() {
+		return node;
+	}
+
+	public Severity getSeverity() {
+		return severity;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public boolean isError() {
+		return severity == Severity.ERROR;
+	}
+
+	@Override
+	public String toString() {
+		return severity + ": " + message;
+	}
+}
@@ -0,0 +1,85 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.ASTNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The diagnostics of one check, in the order they were found. Nodes are looked up by identity,
+ * so a GUI can find the diagnostics of a node without walking the tree.
+ */
+public final class Diagnostics {
+
+	private final ArrayList<Diagnostic> all = new ArrayList<>();
+	private final IdentityHashMap<ASTNode, List<Diagnostic>> byNode = new IdentityHashMap<>();
+	private int errorCount;
+
+	public void add(Diagnostic diagnostic) {
+		all.add(diagnostic);
+		byNode.computeIfAbsent(diagnostic.getNode(), node -> new ArrayList<>(1)).add(diagnostic);
+		if (diagnostic.isError())
+			errorCount++;
+	}
+
+	public void addAll(Diagnostics other) {
+		for (Diagnostic diagnostic : other.all)
+			add(diagnostic);
+	}
+
+	public void error(ASTNode node, String message) {
+		add(new Diagnostic(node, Diagnostic.Severity.ERROR, message));
+	}
+
+	public void warning(ASTNode node, String message) {
+		add(new Diagnostic(node, Diagnostic.Severity.WARNING, message));
+	}
+
+	public List<Diagnostic> getAll() {
+		return Collections.unmodifiableList(all);
+	}
+
+	public List<Diagnostic> getErrors() {
+		List<Diagnostic> errors = new ArrayList<>(errorCount);
+		for (Diagnostic diagnostic : all) {
+			if (diagnostic.isError())
+				errors.add(diagnostic);
+		}
+		return errors;
+	}
+
+	public List<Diagnostic> getWarnings() {
+		List<Diagnostic> warnings = new ArrayList<>(all.size() - errorCount);
+		for (Diagnostic diagnostic : all) {
+			if (!diagnostic.isError())
+				warnings.add(diagnostic);
+		}
+		return warnings;
+	}
+
+	public List<Diagnostic> forNode(ASTNode node) {
+		return byNode.getOrDefault(node, Collections.emptyList());
+	}
+
+	public boolean hasError(ASTNode node) {
+		for (Diagnostic diagnostic : forNode(node)) {
+			if (diagnostic.isError())
+				return true;
+		}
+		return false;
+	}
+
+	public boolean hasErrors() {
+		return errorCount > 0;
+	}
+
+	public boolean isEmpty() {
+		return all.isEmpty();
+	}
+
+	public int size() {
+		return all.size();
+	}
+}
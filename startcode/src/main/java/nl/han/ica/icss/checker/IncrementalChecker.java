@@ -0,0 +1,158 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks an AST that is edited between checks, such as the one of an IncrementalParser, and only
+ * checks the statements of the stylesheet again that can have different diagnostics than last time.
+ *
+ * The diagnostics of a statement only depend on its own nodes and on the types of the global variables
+ * it reads. So for every statement the checker keeps its diagnostics and those types, by name, with null
+ * for a name that was not defined yet. A statement is checked again when it is new (statements are
+ * compared by identity), when the caller says it changed, or when one of the global variables it read
+ * has another type at its position now, because an assignment before it was added, removed or edited.
+ * A variable assignment is also checked again when it became used or unused, for its warning.
+ * Anything else reuses its diagnostics and the types recorded on its expressions.
+ *
+ * The references are resolved again on every check, see Resolver; that is one walk without type checks.
+ * Not thread-safe.
+ */
+public final class IncrementalChecker {
+
+    private final PropertySchema fixedSchema;
+    private PropertySchema schema;
+    private IdentityHashMap<ASTNode, Unit> units = new IdentityHashMap<>();
+    private int lastRechecked;
+
+    /**
+     * Uses the installed PropertySchema, and checks everything again when another one is installed.
+     */
+    public IncrementalChecker() {
+        this(null);
+    }
+
+    public IncrementalChecker(PropertySchema schema) {
+        this.fixedSchema = schema;
+    }
+
+    /**
+     * Checks the statements that are new or read a global variable whose type changed.
+     */
+    public Diagnostics check(AST ast) {
+        return check(ast, Collections.emptySet());
+    }
+
+    /**
+     * Like check(AST), but also checks the given statements of the stylesheet again, for statements
+     * that were changed in place instead of replaced.
+     */
+    public Diagnostics check(AST ast, Collection<? extends ASTNode> changed) {
+        PropertySchema current = fixedSchema != null ? fixedSchema : PropertySchema.get();
+        if (current != schema) {
+            schema = current;
+            units.clear();
+        }
+        Set<ASTNode> changedStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+        changedStatements.addAll(changed);
+
+        Resolver.resolve(ast);
+        int[] frameSizes = ast.root.frameSizes;
+        List<ASTNode> statements = ast.root.body;
+        ExpressionType[] globals = new ExpressionType[frameSizes[0]];
+        //Slot of every global variable assigned so far
+        HashMap<String, Integer> globalSlots = new HashMap<>();
+        IdentityHashMap<ASTNode, Unit> checked = new IdentityHashMap<>(statements.size() * 2);
+        Diagnostics diagnostics = new Diagnostics();
+        Checker checker = new Checker(schema);
+        lastRechecked = 0;
+
+        for (ASTNode statement : statements) {
+            Unit unit = units.get(statement);
+            if (unit == null || changedStatements.contains(statement) || !unit.isUpToDate(statement, globals, globalSlots)) {
+                HashMap<String, ExpressionType> reads = new HashMap<>();
+                Diagnostics found = checker.checkStatement(statement, frameSizes, globals, reads);
+                unit = new Unit(found, reads, assignedType(statement, globals), isUnused(statement));
+                lastRechecked++;
+            }
+            if (statement instanceof VariableAssignment assignment) {
+                globals[assignment.name.slot] = unit.assigned;
+                globalSlots.put(assignment.name.name, assignment.name.slot);
+            }
+            checked.put(statement, unit);
+            diagnostics.addAll(unit.diagnostics);
+        }
+        units = checked;
+        return diagnostics;
+    }
+
+    /**
+     * Names of the global variables the statement read when it was last checked,
+     * including names that were not defined; empty for a statement that was not checked.
+     */
+    public Set<String> getDependencies(ASTNode statement) {
+        Unit unit = units.get(statement);
+        return unit == null ? Collections.emptySet() : Collections.unmodifiableSet(unit.reads.keySet());
+    }
+
+    /**
+     * Number of statements that were checked again by the last check.
+     */
+    public int getLastRecheckedCount() {
+        return lastRechecked;
+    }
+
+    /**
+     * Forgets all results, so the next check checks everything.
+     */
+    public void clear() {
+        units.clear();
+    }
+
+    private static ExpressionType assignedType(ASTNode statement, ExpressionType[] globals) {
+        if (statement instanceof VariableAssignment assignment)
+            return globals[assignment.name.slot];
+        return null;
+    }
+
+    private static boolean isUnused(ASTNode statement) {
+        return statement instanceof VariableAssignment assignment && assignment.unused;
+    }
+
+    private static final class Unit {
+        private final Diagnostics diagnostics;
+        private final Map<String, ExpressionType> reads;
+        //Type of the variable, for a variable assignment
+        private final ExpressionType assigned;
+        private final boolean unused;
+
+        Unit(Diagnostics diagnostics, Map<String, ExpressionType> reads, ExpressionType assigned, boolean unused) {
+            this.diagnostics = diagnostics;
+            this.reads = reads;
+            this.assigned = assigned;
+            this.unused = unused;
+        }
+
+        boolean isUpToDate(ASTNode statement, ExpressionType[] globals, Map<String, Integer> globalSlots) {
+            if (isUnused(statement) != unused)
+                return false;
+            for (Map.Entry<String, ExpressionType> read : reads.entrySet()) {
+                Integer slot = globalSlots.get(read.getKey());
+                ExpressionType now = slot == null ? null : globals[slot];
+                if (now != read.getValue())
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the variable assignments whose value is never read, and sets VariableAssignment.unused.
+ *
+ * A reference reads the last assignment to its slot before it, in the scope it is bound to (see
+ * Resolver), so the walk keeps the last assignment of every slot of the open scopes. A reference in a
+ * declaration or an if condition makes that assignment live; one in the expression of another
+ * assignment only when that other assignment is live itself. In "A := 1px; A := A + 1px;" without
+ * a reader of the second A both are unused. Both branches of an if clause count, whatever the condition.
+ *
+ * Resolver.resolve runs it, so the flags are up to date whenever the references are. The flags are
+ * only written once the analysis is done, each assignment once.
+ */
+public final class LivenessAnalysis {
+
+    private final VariableAssignment[][] lastAssignments;
+    private int depth = -1;
+
+    //The assignment whose expression is walked, null for a declaration or an if condition
+    private VariableAssignment reader;
+    //The assignments each assignment reads
+    private final IdentityHashMap<VariableAssignment, List<VariableAssignment>> reads = new IdentityHashMap<>();
+    private final ArrayDeque<VariableAssignment> reached = new ArrayDeque<>();
+    private final Set<VariableAssignment> live = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<VariableAssignment> assignments = new ArrayList<>();
+
+    private final ASTVisitor<Void, Void> statementAnalyzer = new ASTVisitor<>() {
+        @Override
+        public Void visitStylerule(Stylerule rule, Void context) {
+            analyzeScope(rule.body);
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration declaration, Void context) {
+            analyzeExpression(declaration.expression, null);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment assignment, Void context) {
+            assignments.add(assignment);
+            analyzeExpression(assignment.expression, assignment);
+            VariableReference name = assignment.name;
+            if (name.isResolved())
+                lastAssignments[name.depth][name.slot] = assignment;
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause ifClause, Void context) {
+            analyzeExpression(ifClause.conditionalExpression, null);
+            analyzeScope(ifClause.body);
+            if (ifClause.elseClause != null)
+                analyzeScope(ifClause.elseClause.body);
+            return null;
+        }
+    };
+
+    private final ASTVisitor<Void, Void> expressionAnalyzer = new ASTVisitor<>() {
+        @Override
+        public Void visitVariableReference(VariableReference reference, Void context) {
+            if (!reference.isResolved())
+                return null;
+            VariableAssignment assignment = lastAssignments[reference.depth][reference.slot];
+            if (assignment == null)
+                return null;
+            if (reader == null)
+                reached.add(assignment);
+            else
+                reads.computeIfAbsent(reader, r -> new ArrayList<>(2)).add(assignment);
+            return null;
+        }
+
+        @Override
+        public Void visitOperation(Operation operation, Void context) {
+            if (operation.lhs != null)
+                operation.lhs.accept(this, null);
+            if (operation.rhs != null)
+                operation.rhs.accept(this, null);
+            return null;
+        }
+    };
+
+    private LivenessAnalysis(int[] frameSizes) {
+        lastAssignments = new VariableAssignment[frameSizes.length][];
+        for (int d = 0; d < frameSizes.length; d++) {
+            lastAssignments[d] = new VariableAssignment[frameSizes[d]];
+        }
+    }
+
+    /**
+     * Sets VariableAssignment.unused on every assignment of a resolved AST.
+     * @return the unused assignments, in the order of the stylesheet
+     */
+    public static List<VariableAssignment> analyze(AST ast) {
+        if (ast.root.frameSizes == null)
+            throw new IllegalStateException("The AST is not resolved");
+        return analyze(ast.root, ast.root.frameSizes);
+    }
+
+    static List<VariableAssignment> analyze(Stylesheet stylesheet, int[] frameSizes) {
+        LivenessAnalysis analysis = new LivenessAnalysis(frameSizes);
+        analysis.analyzeScope(stylesheet.body);
+        analysis.propagate();
+
+        List<VariableAssignment> unused = new ArrayList<>();
+        for (VariableAssignment assignment : analysis.assignments) {
+            assignment.unused = !analysis.live.contains(assignment);
+            if (assignment.unused)
+                unused.add(assignment);
+        }
+        return unused;
+    }
+
+    private void analyzeScope(List<ASTNode> body) {
+        depth++;
+        Arrays.fill(lastAssignments[depth], null);
+        for (ASTNode statement : body)
+            statement.accept(statementAnalyzer, null);
+        depth--;
+    }
+
+    private void analyzeExpression(Expression expression, VariableAssignment reader) {
+        if (expression == null)
+            return;
+        this.reader = reader;
+        expression.accept(expressionAnalyzer, null);
+        this.reader = null;
+    }
+
+    //Everything a live assignment reads is live as well
+    private void propagate() {
+        while (!reached.isEmpty()) {
+            VariableAssignment assignment = reached.poll();
+            if (live.add(assignment))
+                reached.addAll(reads.getOrDefault(assignment, List.of()));
+        }
+    }
+}
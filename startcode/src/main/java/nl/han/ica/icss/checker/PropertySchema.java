@@ -0,0 +1,243 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The types the value of each CSS property may have, read from a schema such as properties.schema:
+ * one "property: type ..." per line, # starts a comment.
+ *
+ * The names are compiled into a trie with a full transition table per node, so a lookup costs one
+ * array access per character, ignores case without copying the name, and allocates nothing.
+ * The types of a property are an int with the bit of every allowed ExpressionType set.
+ *
+ * A schema is immutable. The one new Checkers use can be replaced while the program runs, with
+ * install or reloadDefault; a Checker keeps the schema it was created with.
+ */
+public final class PropertySchema {
+
+    public static final String DEFAULT_RESOURCE = "properties.schema";
+
+    //Types of a property that is not in the schema
+    public static final int UNKNOWN = 0;
+
+    //a-z (either case), '-' and 0-9
+    private static final int ALPHABET = 26 + 1 + 10;
+
+    private static volatile PropertySchema installed;
+
+    //transitions[node * ALPHABET + symbol] is the next node, 0 for none (node 0 is the root)
+    private final int[] transitions;
+    private final int[] types;
+    private final int size;
+    private final byte[] fingerprint;
+
+    private PropertySchema(int[] transitions, int[] types, int size, byte[] fingerprint) {
+        this.transitions = transitions;
+        this.types = types;
+        this.size = size;
+        this.fingerprint = fingerprint;
+    }
+
+    public static int bit(ExpressionType type) {
+        return 1 << type.ordinal();
+    }
+
+    /**
+     * @return the bits of the allowed types, or UNKNOWN
+     */
+    public int allowedTypes(CharSequence property) {
+        int node = 0;
+        for (int i = 0; i < property.length(); i++) {
+            int symbol = symbol(property.charAt(i));
+            if (symbol < 0)
+                return UNKNOWN;
+            node = transitions[node * ALPHABET + symbol];
+            if (node == 0)
+                return UNKNOWN;
+        }
+        return types[node];
+    }
+
+    public boolean allows(CharSequence property, ExpressionType type) {
+        return (allowedTypes(property) & bit(type)) != 0;
+    }
+
+    /**
+     * Number of properties in the schema.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * SHA-256 of the properties and their types, in the order of the schema. Schemas with the same
+     * fingerprint give the same diagnostics, so it can be part of the key of cached check results.
+     */
+    public byte[] getFingerprint() {
+        return fingerprint.clone();
+    }
+
+    /**
+     * The schema used by Checkers created from now on. Loads the default schema on first use.
+     */
+    public static PropertySchema get() {
+        PropertySchema schema = installed;
+        if (schema == null) {
+            synchronized (PropertySchema.class) {
+                if (installed == null) {
+                    try {
+                        installed = loadResource(DEFAULT_RESOURCE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                schema = installed;
+            }
+        }
+        return schema;
+    }
+
+    public static void install(PropertySchema schema) {
+        installed = schema;
+    }
+
+    /**
+     * Reads the default schema again and installs it.
+     */
+    public static PropertySchema reloadDefault() throws IOException {
+        PropertySchema schema = loadResource(DEFAULT_RESOURCE);
+        install(schema);
+        return schema;
+    }
+
+    public static PropertySchema load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    public static PropertySchema loadResource(String name) throws IOException {
+        InputStream in = PropertySchema.class.getClassLoader().getResourceAsStream(name);
+        if (in == null)
+            throw new IOException("Resource not found: " + name);
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException for a line that is not a property with known types
+     */
+    public static PropertySchema parse(Reader reader) throws IOException {
+        Builder builder = new Builder();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0)
+                line = line.substring(0, comment);
+            line = line.strip();
+            if (line.isEmpty())
+                continue;
+
+            int colon = line.indexOf(':');
+            if (colon <= 0)
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected <property>: <type> ...");
+            String property = line.substring(0, colon).strip();
+            int allowed = 0;
+            for (String type : line.substring(colon + 1).strip().split("\\s+")) {
+                allowed |= typeBit(type, lineNumber);
+            }
+            builder.add(property, allowed, lineNumber);
+        }
+        return builder.build();
+    }
+
+    private static int typeBit(String name, int lineNumber) {
+        switch (name) {
+            case "pixel": return bit(ExpressionType.PIXEL);
+            case "percentage": return bit(ExpressionType.PERCENTAGE);
+            case "scalar": return bit(ExpressionType.SCALAR);
+            case "color": return bit(ExpressionType.COLOR);
+            case "bool": return bit(ExpressionType.BOOL);
+            default: throw new IllegalArgumentException("Line " + lineNumber + ": unknown type '" + name + "'");
+        }
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z')
+            return c - 'a';
+        if (c >= 'A' && c <= 'Z')
+            return c - 'A';
+        if (c == '-')
+            return 26;
+        if (c >= '0' && c <= '9')
+            return 27 + c - '0';
+        return -1;
+    }
+
+    private static final class Builder {
+        private int[] transitions = new int[64 * ALPHABET];
+        private int[] types = new int[64];
+        private int nodes = 1;
+        private int size;
+        private final MessageDigest digest = newDigest();
+
+        void add(String property, int allowed, int lineNumber) {
+            int node = 0;
+            for (int i = 0; i < property.length(); i++) {
+                int symbol = symbol(property.charAt(i));
+                if (symbol < 0)
+                    throw new IllegalArgumentException("Line " + lineNumber + ": invalid property name '" + property + "'");
+                int next = transitions[node * ALPHABET + symbol];
+                if (next == 0) {
+                    next = newNode();
+                    transitions[node * ALPHABET + symbol] = next;
+                }
+                node = next;
+            }
+            if (types[node] != UNKNOWN)
+                throw new IllegalArgumentException("Line " + lineNumber + ": duplicate property '" + property + "'");
+            types[node] = allowed;
+            size++;
+            digest.update((property.toLowerCase(Locale.ROOT) + ':' + allowed + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+
+        private int newNode() {
+            if (nodes == types.length) {
+                types = Arrays.copyOf(types, nodes * 2);
+                transitions = Arrays.copyOf(transitions, nodes * 2 * ALPHABET);
+            }
+            return nodes++;
+        }
+
+        PropertySchema build() {
+            return new PropertySchema(Arrays.copyOf(transitions, nodes * ALPHABET), Arrays.copyOf(types, nodes), size,
+                    digest.digest());
+        }
+
+        private static MessageDigest newDigest() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
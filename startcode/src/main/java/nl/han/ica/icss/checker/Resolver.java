@@ -0,0 +1,131 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Binds every VariableReference to a slot in a variable frame, so the Checker and the Evaluator
+ * look variables up by index instead of by name.
+ *
+ * The stylesheet, every stylerule, every if body and every else body is a scope. A scope at
+ * nesting depth d (the stylesheet is 0) has a frame of Stylesheet.frameSizes[d] slots. A variable
+ * gets the next free slot of its scope at its first assignment there; a later assignment in the
+ * same scope reuses that slot. A reference is bound to the innermost scope that assigned the name
+ * before the reference, which is the variable the old name lookup found, or stays UNRESOLVED.
+ *
+ * As scopes are nested and evaluated in order, a pass only needs one frame per depth: the frame
+ * at depth d always belongs to the innermost open scope at that depth.
+ */
+public final class Resolver {
+
+    //Slots per name of the open scopes, by depth
+    private final ArrayList<HashMap<String, Integer>> scopes = new ArrayList<>();
+    private int[] frameSizes = new int[4];
+    private int depth = -1;
+
+    private final ASTVisitor<Void, Void> statementResolver = new ASTVisitor<>() {
+        @Override
+        public Void visitStylerule(Stylerule rule, Void context) {
+            resolveScope(rule.body);
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration declaration, Void context) {
+            resolveExpression(declaration.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment assignment, Void context) {
+            //The expression is evaluated before the name is bound: "A := A + 1px" uses the outer A
+            resolveExpression(assignment.expression);
+            HashMap<String, Integer> scope = scopes.get(depth);
+            Integer slot = scope.get(assignment.name.name);
+            if (slot == null) {
+                slot = scope.size();
+                scope.put(assignment.name.name, slot);
+                frameSizes[depth] = Math.max(frameSizes[depth], scope.size());
+            }
+            assignment.name.bind(depth, slot);
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause ifClause, Void context) {
+            resolveExpression(ifClause.conditionalExpression);
+            resolveScope(ifClause.body);
+            if (ifClause.elseClause != null)
+                resolveScope(ifClause.elseClause.body);
+            return null;
+        }
+    };
+
+    private final ASTVisitor<Void, Void> expressionResolver = new ASTVisitor<>() {
+        @Override
+        public Void visitVariableReference(VariableReference reference, Void context) {
+            reference.unbind();
+            for (int d = depth; d >= 0; d--) {
+                Integer slot = scopes.get(d).get(reference.name);
+                if (slot != null) {
+                    reference.bind(d, slot);
+                    break;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitOperation(Operation operation, Void context) {
+            resolveExpression(operation.lhs);
+            resolveExpression(operation.rhs);
+            return null;
+        }
+    };
+
+    /**
+     * Binds all references of the AST, runs the LivenessAnalysis and then sets Stylesheet.frameSizes.
+     * Changes the tree: no other thread may use it meanwhile. Hand a resolved tree to other threads.
+     */
+    public static void resolve(AST ast) {
+        ast.root.frameSizes = null;
+        Resolver resolver = new Resolver();
+        resolver.resolveScope(ast.root.body);
+        int[] frameSizes = Arrays.copyOf(resolver.frameSizes, resolver.maxDepth());
+        LivenessAnalysis.analyze(ast.root, frameSizes);
+        ast.root.frameSizes = frameSizes;
+    }
+
+    /**
+     * Resolves the AST unless it has been resolved, and not changed through addChild or removeChild, since.
+     * Like resolve, only for a tree no other thread uses.
+     */
+    public static void ensureResolved(AST ast) {
+        if (ast.root.frameSizes == null)
+            resolve(ast);
+    }
+
+    private void resolveScope(ArrayList<ASTNode> body) {
+        depth++;
+        if (depth == scopes.size())
+            scopes.add(new HashMap<>());
+        if (depth == frameSizes.length)
+            frameSizes = Arrays.copyOf(frameSizes, depth * 2);
+        for (ASTNode statement : body)
+            statement.accept(statementResolver, null);
+        scopes.get(depth).clear();
+        depth--;
+    }
+
+    private void resolveExpression(Expression expression) {
+        if (expression != null)
+            expression.accept(expressionResolver, null);
+    }
+
+    private int maxDepth() {
+        return scopes.size();
+    }
+}
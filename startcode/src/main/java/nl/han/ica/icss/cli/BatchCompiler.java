@@ -0,0 +1,242 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.CompilationResult.Stage;
+import nl.han.ica.icss.Compiler;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless compiler for whole directory trees of ICSS files.
+ * Every file runs parse, check, transform and generate on a fork-join pool and the
+ * resulting CSS is written next to the input file.
+ *
+ * Usage: BatchCompiler [-j threads] [--parallel-parse] [--parallel-check] [--cache directory] (directory | file.icss)...
+ * With --parallel-parse a single large file is also parsed on several threads,
+ * with --parallel-check its stylerules are also checked on several threads.
+ * With --cache the checked ASTs are kept in the directory, and files whose content did not change
+ * since an earlier run skip parsing and checking.
+ */
+public class BatchCompiler {
+
+    private static final String INPUT_EXTENSION = ".icss";
+    private static final String OUTPUT_EXTENSION = ".css";
+
+    private final ForkJoinPool pool;
+    private final Compiler.Options options;
+
+    public BatchCompiler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchCompiler(int parallelism) {
+        this(parallelism, Compiler.Options.DEFAULT);
+    }
+
+    public BatchCompiler(int parallelism, Compiler.Options options) {
+        pool = new ForkJoinPool(parallelism);
+        this.options = options;
+    }
+
+    /**
+     * Compiles all inputs concurrently. The results are in the same order as the inputs.
+     */
+    public List<FileResult> compile(List<Path> inputs) throws InterruptedException {
+        List<Callable<FileResult>> tasks = new ArrayList<>();
+        for (Path input : inputs) {
+            tasks.add(() -> compileFile(input));
+        }
+
+        List<FileResult> results = new ArrayList<>();
+        for (Future<FileResult> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                //compileFile catches everything it expects, this is a bug in one of the stages
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private FileResult compileFile(Path input) {
+        FileResult result = new FileResult(input);
+        try {
+            result.compilation = Compiler.compile(input, options);
+            if (result.compilation.getCss() != null) {
+                Path output = outputPathFor(input);
+                Files.writeString(output, result.compilation.getCss(), StandardCharsets.UTF_8);
+                result.output = output;
+            }
+        } catch (IOException e) {
+            result.ioError = "IO error: " + e.getMessage();
+        }
+        return result;
+    }
+
+    static Path outputPathFor(Path input) {
+        String name = input.getFileName().toString();
+        if (name.endsWith(INPUT_EXTENSION)) {
+            name = name.substring(0, name.length() - INPUT_EXTENSION.length());
+        }
+        return input.resolveSibling(name + OUTPUT_EXTENSION);
+    }
+
+    /**
+     * Expands the arguments to a sorted list of .icss files. Directories are searched recursively.
+     */
+    public static List<Path> collectInputs(List<String> arguments) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        for (String argument : arguments) {
+            Path path = Paths.get(argument);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    inputs.addAll(walk
+                            .filter(Files::isRegularFile)
+                            .filter(p -> p.getFileName().toString().endsWith(INPUT_EXTENSION))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                inputs.add(path);
+            }
+        }
+        return inputs;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /*
+     Runs the command line and returns the exit status: 0 when every file compiled, 1 when one failed,
+     2 for a usage error.
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) throws IOException, InterruptedException {
+        Arguments arguments = Arguments.parse(args);
+        if (arguments.paths.isEmpty()) {
+            err.println("Usage: BatchCompiler [-j threads] [--parallel-parse] [--parallel-check] [--cache directory] (directory | file.icss)...");
+            return 2;
+        }
+
+        List<Path> inputs = collectInputs(arguments.paths);
+        BatchCompiler compiler = new BatchCompiler(arguments.parallelism, arguments.options);
+        long start = System.nanoTime();
+        List<FileResult> results;
+        try {
+            results = compiler.compile(inputs);
+        } finally {
+            compiler.shutdown();
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        return printSummary(results, wallNanos, arguments.parallelism, out, err) ? 0 : 1;
+    }
+
+    private static boolean printSummary(List<FileResult> results, long wallNanos, int parallelism,
+                                        PrintStream out, PrintStream err) {
+        int failed = 0;
+        long[] stageNanos = new long[Stage.values().length];
+        for (FileResult result : results) {
+            for (Stage stage : Stage.values()) {
+                stageNanos[stage.ordinal()] += result.getNanos(stage);
+            }
+            if (!result.isSucceeded()) {
+                failed++;
+                err.println(result.input + ":");
+                for (String error : result.getErrors()) {
+                    if (!error.isEmpty())
+                        err.println("  " + error);
+                }
+            }
+        }
+        out.printf("Compiled %d file(s), %d failed, on %d thread(s) in %d ms%n",
+                results.size(), failed, parallelism, wallNanos / 1_000_000);
+        out.printf("  parse %d ms, check %d ms, transform %d ms, generate %d ms (cpu time summed over files)%n",
+                stageNanos[Stage.PARSE.ordinal()] / 1_000_000, stageNanos[Stage.CHECK.ordinal()] / 1_000_000,
+                stageNanos[Stage.TRANSFORM.ordinal()] / 1_000_000, stageNanos[Stage.GENERATE.ordinal()] / 1_000_000);
+        return failed == 0;
+    }
+
+    /*
+     The switches and the paths of a command line.
+     */
+    static final class Arguments {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Compiler.Options options = Compiler.Options.DEFAULT;
+        final List<String> paths = new ArrayList<>();
+
+        //Creates the cache directory when it does not exist yet
+        static Arguments parse(String[] args) throws IOException {
+            Arguments arguments = new Arguments();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-j") && i + 1 < args.length) {
+                    arguments.parallelism = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                    Path cacheDirectory = Files.createDirectories(Paths.get(args[++i]));
+                    arguments.options = arguments.options.withCacheDirectory(cacheDirectory);
+                } else if (args[i].equals("--parallel-check")) {
+                    arguments.options = arguments.options.withParallelCheck(true);
+                } else if (args[i].equals("--parallel-parse")) {
+                    arguments.options = arguments.options.withParseOptions(
+                            arguments.options.getParseOptions().withParallel(true));
+                } else {
+                    arguments.paths.add(args[i]);
+                }
+            }
+            return arguments;
+        }
+    }
+
+    /**
+     * Outcome of compiling a single file. Stage times are zero for stages that did not run.
+     */
+    public static class FileResult {
+        private final Path input;
+        private Path output;
+        private CompilationResult compilation;
+        private String ioError;
+
+        FileResult(Path input) {
+            this.input = input;
+        }
+
+        public Path getInput() { return input; }
+        public Path getOutput() { return output; }
+        public CompilationResult getCompilation() { return compilation; }
+
+        public List<String> getErrors() {
+            List<String> errors = new ArrayList<>();
+            if (compilation != null)
+                errors.addAll(compilation.getErrors());
+            if (ioError != null)
+                errors.add(ioError);
+            return errors;
+        }
+
+        public long getNanos(Stage stage) {
+            return compilation == null ? 0 : compilation.getNanos(stage);
+        }
+
+        public boolean isSucceeded() {
+            return output != null;
+        }
+    }
+}
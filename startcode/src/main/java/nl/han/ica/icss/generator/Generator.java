@@ -4,56 +4,82 @@ package nl.han.ica.icss.generator;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
 
-import java.util.ArrayList;
-
 public class Generator {
 
-	public String generate(AST ast) {
-        return generateStylesheet(ast.root);
+	/*
+	 Writes every node into the StringBuilder it gets as context. Nodes without CSS, such as
+	 variable assignments, fall through to visitNode and write nothing.
+	 */
+	private static final ASTVisitor<Void, StringBuilder> CSS_WRITER = new ASTVisitor<>() {
+		@Override
+		public Void visitStylesheet(Stylesheet stylesheet, StringBuilder sb) {
+			for (ASTNode child : stylesheet.body) {
+				child.accept(this, sb);
+			}
+			return null;
+		}
 
+		@Override
+		public Void visitStylerule(Stylerule stylerule, StringBuilder sb) {
+			sb.append(stylerule.selectors.get(0)).append(" {");
+			for (ASTNode child : stylerule.body) {
+				child.accept(this, sb);
+			}
+			sb.append("\n}\n");
+			return null;
+		}
 
-	}
-	private String generateStylesheet(Stylesheet stylesheet) {
-		StringBuilder stylesheetBuilder = new StringBuilder();
-		for (ASTNode child : stylesheet.getChildren()) {
-			if(child instanceof Stylerule) {
-				stylesheetBuilder.append(generateStylerule((Stylerule) child)).append("\n");
+		@Override
+		public Void visitDeclaration(Declaration declaration, StringBuilder sb) {
+			sb.append("\n  ").append(declaration.property.name).append(" : ");
+			if (declaration.expression != null)
+				declaration.expression.accept(this, sb);
+			sb.append(";");
+			return null;
+		}
+
+		//Literals carry their type from the start, so one switch on it does for every kind
+		@Override
+		public Void visitLiteral(Literal literal, StringBuilder sb) {
+			switch (literal.type) {
+				case PIXEL: sb.append(((PixelLiteral) literal).value).append("px"); break;
+				case PERCENTAGE: sb.append(((PercentageLiteral) literal).value).append("%"); break;
+				case SCALAR: sb.append(((ScalarLiteral) literal).value); break;
+				case COLOR: appendColor(sb, ((ColorLiteral) literal).rgba); break;
+				case BOOL: sb.append(((BoolLiteral) literal).value ? "TRUE" : "FALSE"); break;
+				default: break;
 			}
+			return null;
 		}
-		return stylesheetBuilder.toString();
-	}
+	};
 
-	private String generateStylerule(Stylerule stylerule) {
-		return stylerule.selectors.get(0).toString()
-				+" {"
-				+ generateDeclaration(stylerule.body) +
-				"\n}";
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
+	/*
+	 Writes #rgb when every byte of the colour has two equal hex digits, else #rrggbb.
+	 A colour that is not opaque gets its alpha too, as #rrggbbaa.
+	 */
+	static void appendColor(StringBuilder sb, int rgba) {
+		sb.append('#');
+		if ((rgba & 0xff) != ColorLiteral.OPAQUE) {
+			appendHex(sb, rgba, 28, 4);
+			return;
+		}
+		int rgb = rgba >>> 8;
+		if (((rgb >> 4) & 0x0f0f0f) == (rgb & 0x0f0f0f))
+			appendHex(sb, rgb, 16, 8);
+		else
+			appendHex(sb, rgb, 20, 4);
+	}
 
+	private static void appendHex(StringBuilder sb, int value, int highestShift, int step) {
+		for (int shift = highestShift; shift >= 0; shift -= step)
+			sb.append(HEX_DIGITS[(value >>> shift) & 0xf]);
 	}
 
-	private String generateDeclaration(ArrayList<ASTNode> body) {
+	public String generate(AST ast) {
 		StringBuilder sb = new StringBuilder();
-        for (ASTNode astNode : body) {
-			Declaration child = (Declaration) astNode;
-            sb.append("\n  ").append(child.property.name).append(" : ").append(generateExpression(child.expression)).append(";");
-        }
+		ast.root.accept(CSS_WRITER, sb);
 		return sb.toString();
-
-	}
-	private String generateExpression(Expression expression) {
-		if (expression instanceof PixelLiteral)
-			return ((PixelLiteral) expression).value + "px";
-		if (expression instanceof PercentageLiteral)
-			return ((PercentageLiteral) expression).value + "%";
-		if (expression instanceof ColorLiteral)
-			return ((ColorLiteral) expression).value;
-		if (expression instanceof ScalarLiteral)
-			return String.valueOf(((ScalarLiteral) expression).value);
-		if (expression instanceof BoolLiteral)
-			return ((BoolLiteral) expression).value ? "TRUE" : "FALSE";
-		return "";
 	}
-
-
 }
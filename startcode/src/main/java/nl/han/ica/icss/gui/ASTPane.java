@@ -8,11 +8,13 @@ import javafx.scene.control.TreeView;
 import javafx.scene.layout.BorderPane;
 import nl.han.ica.icss.ast.AST;
 import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.checker.Diagnostics;
 
 public class ASTPane extends BorderPane {
 
     private TreeView<ASTNode> content;
     private Label title;
+    private Diagnostics diagnostics = new Diagnostics();
 
     public ASTPane () {
 		super();
@@ -30,7 +32,7 @@ public class ASTPane extends BorderPane {
                     setText("");
                 } else {
                     setText(item.getNodeLabel());
-                    if(item.hasError()) {
+                    if(diagnostics.hasError(item)) {
                         getStyleClass().add("error");
                     }
                 }
@@ -46,8 +48,10 @@ public class ASTPane extends BorderPane {
     /**
      * Updates the panes based on the current content of the AST
      * @param ast
+     * @param diagnostics nodes with an error in here are highlighted
      */
-    public void update(AST ast) {
+    public void update(AST ast, Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
         content.setRoot(astNodeToTreeItem(ast.root));
     }
     private TreeItem<ASTNode> astNodeToTreeItem(ASTNode astNode) {
@@ -55,8 +59,8 @@ public class ASTPane extends BorderPane {
         TreeItem<ASTNode> tvNode = new TreeItem<ASTNode>(astNode);
         tvNode.setExpanded(true);
 
-        for(ASTNode child : astNode.getChildren()) {
-            tvNode.getChildren().add(astNodeToTreeItem(child));
+        for(int i = 0; i < astNode.getChildCount(); i++) {
+            tvNode.getChildren().add(astNodeToTreeItem(astNode.getChild(i)));
         }
         return tvNode;
     }
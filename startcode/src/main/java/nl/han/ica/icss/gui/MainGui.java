@@ -14,6 +14,7 @@ import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.checker.Diagnostic;
 
 import java.io.File;
 import java.io.IOException;
@@ -204,7 +205,7 @@ public class MainGui extends Application {
         if (pipeline.isParsed()) {
             feedbackPane.addLine("Parsing succeeded");
         }
-        astPane.update(pipeline.getAST());
+        astPane.update(pipeline.getAST(), pipeline.getDiagnostics());
         updateToolbar();
     }
 
@@ -218,7 +219,10 @@ public class MainGui extends Application {
                 feedbackPane.addLine(e);
             }
         }
-        astPane.update(pipeline.getAST());
+        for (Diagnostic warning : pipeline.getDiagnostics().getWarnings()) {
+            feedbackPane.addLine(warning.toString());
+        }
+        astPane.update(pipeline.getAST(), pipeline.getDiagnostics());
         updateToolbar();
     }
 
@@ -229,7 +233,7 @@ public class MainGui extends Application {
        if (pipeline.isTransformed()) {
            feedbackPane.addLine("Transformation succeeded");
        }
-       astPane.update(pipeline.getAST());
+       astPane.update(pipeline.getAST(), pipeline.getDiagnostics());
        updateToolbar();
     }
 
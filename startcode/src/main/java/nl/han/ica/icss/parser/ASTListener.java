@@ -1,13 +1,18 @@
 package nl.han.ica.icss.parser;
 
-import java.util.Stack;
-
 import nl.han.ica.datastructures.HANStack;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.*;
 import nl.han.ica.icss.ast.selectors.*;
-
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/*
+ * Builds the AST from listener events. Only tokens (ctx.getStart() and the rule's own terminals)
+ * and the parent context are used, never child rule contexts. That way it works both when walking
+ * a finished parse tree and as a parse listener while the parser runs without building a tree.
+ */
 public class ASTListener extends ICSSBaseListener {
 
 	private AST ast;
@@ -50,39 +55,35 @@ public class ASTListener extends ICSSBaseListener {
 		if (parent instanceof Stylerule)
 			((Stylerule) parent).addChild(decl);
 		else if (parent instanceof IfClause)
-			((IfClause) parent).body.add(decl);
+			((IfClause) parent).addChild(decl);
 		else if (parent instanceof ElseClause)
-			((ElseClause) parent).body.add(decl);
+			((ElseClause) parent).addChild(decl);
 	}
 
 	@Override
 	public void enterProperty(ICSSParser.PropertyContext ctx) {
-		((Declaration) currentContainer.peek())
-				.property = new PropertyName(ctx.LOWERIDENT().getText());
+		currentContainer.peek().addChild(new PropertyName(ctx.getStart().getText()));
 	}
 
 	@Override
 	public void enterIdSelector(ICSSParser.IdSelectorContext ctx) {
-		((Stylerule) currentContainer.peek())
-				.selectors.add(new IdSelector(ctx.IDIDENT().getText()));
+		currentContainer.peek().addChild(new IdSelector(ctx.getStart().getText()));
 	}
 
 	@Override
 	public void enterClassSelector(ICSSParser.ClassSelectorContext ctx) {
-		((Stylerule) currentContainer.peek())
-				.selectors.add(new ClassSelector(ctx.CLASSIDENT().getText()));
+		currentContainer.peek().addChild(new ClassSelector(ctx.getStart().getText()));
 	}
 
 	@Override
 	public void enterTagSelector(ICSSParser.TagSelectorContext ctx) {
-		((Stylerule) currentContainer.peek())
-				.selectors.add(new TagSelector(ctx.LOWERIDENT().getText()));
+		currentContainer.peek().addChild(new TagSelector(ctx.getStart().getText()));
 	}
 
 	@Override
 	public void enterVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
 		VariableAssignment va = new VariableAssignment();
-		va.name = new VariableReference(ctx.CAPITALIDENT().getText());
+		va.addChild(new VariableReference(ctx.getStart().getText()));
 		currentContainer.push(va);
 	}
 
@@ -93,11 +94,11 @@ public class ASTListener extends ICSSBaseListener {
 		if (parent instanceof Stylesheet)
 			((Stylesheet) parent).addChild(va);
 		else if (parent instanceof Stylerule)
-			((Stylerule) parent).body.add(va);
+			((Stylerule) parent).addChild(va);
 		else if (parent instanceof IfClause)
-			((IfClause) parent).body.add(va);
+			((IfClause) parent).addChild(va);
 		else if (parent instanceof ElseClause)
-			((ElseClause) parent).body.add(va);
+			((ElseClause) parent).addChild(va);
 	}
 
 	@Override
@@ -107,49 +108,76 @@ public class ASTListener extends ICSSBaseListener {
 
 	@Override
 	public void exitIfClause(ICSSParser.IfClauseContext ctx) {
-		IfClause ifClause = (IfClause) currentContainer.pop();
-
-		if (ctx.ELSE() != null && !ctx.statement().isEmpty()) {
-			ElseClause elseClause = new ElseClause();
-
-			int totalStatements = ctx.statement().size();
-			int half = totalStatements / 2;
-			for (int i = half; i < totalStatements; i++) {
-				ASTNode node = ifClause.body.remove(half);
-				elseClause.body.add(node);
-			}
-			ifClause.elseClause = elseClause;
+		ASTNode top = currentContainer.pop();
+		IfClause ifClause;
+		if (top instanceof ElseClause) {
+			ifClause = (IfClause) currentContainer.pop();
+			ifClause.addChild(top);
+		} else {
+			ifClause = (IfClause) top;
 		}
 
 		ASTNode parent = currentContainer.peek();
 		if (parent instanceof Stylerule)
-			((Stylerule) parent).body.add(ifClause);
+			((Stylerule) parent).addChild(ifClause);
 		else if (parent instanceof IfClause)
-			((IfClause) parent).body.add(ifClause);
+			((IfClause) parent).addChild(ifClause);
 		else if (parent instanceof ElseClause)
-			((ElseClause) parent).body.add(ifClause);
+			((ElseClause) parent).addChild(ifClause);
+	}
+
+	/*
+	 The else branch has no rule of its own, so the ELSE token opens it. Statements after it
+	 end up in the ElseClause, which exitIfClause finds on top of the IfClause.
+	 */
+	@Override
+	public void visitTerminal(TerminalNode node) {
+		if (node.getSymbol().getType() == ICSSParser.ELSE && currentContainer.peek() instanceof IfClause)
+			currentContainer.push(new ElseClause());
 	}
 
 	@Override
 	public void enterVariableReference(ICSSParser.VariableReferenceContext ctx) {
-		currentContainer.push(new VariableReference(ctx.CAPITALIDENT().getText()));
+		currentContainer.push(new VariableReference(ctx.getStart().getText()));
 	}
 
 	@Override
 	public void enterLiteral(ICSSParser.LiteralContext ctx) {
+		Token token = ctx.getStart();
 		Expression lit = null;
-		if (ctx.PIXELSIZE() != null)
-			lit = new PixelLiteral(Integer.parseInt(ctx.PIXELSIZE().getText().replace("px", "")));
-		else if (ctx.PERCENTAGE() != null)
-			lit = new PercentageLiteral(Integer.parseInt(ctx.PERCENTAGE().getText().replace("%", "")));
-		else if (ctx.NUMBER() != null)
-			lit = new ScalarLiteral(Integer.parseInt(ctx.NUMBER().getText()));
-		else if (ctx.COLOR() != null)
-			lit = new ColorLiteral(ctx.COLOR().getText());
-		else if (ctx.TRUE() != null || ctx.FALSE() != null)
-			lit = new BoolLiteral(ctx.TRUE() != null);
+		switch (token.getType()) {
+			case ICSSParser.PIXELSIZE:
+				lit = Literals.pixel(intValue(token, 2));
+				break;
+			case ICSSParser.PERCENTAGE:
+				lit = Literals.percentage(intValue(token, 1));
+				break;
+			case ICSSParser.NUMBER:
+				lit = Literals.scalar(intValue(token, 0));
+				break;
+			case ICSSParser.COLOR:
+				lit = Literals.color(colorValue(token));
+				break;
+			case ICSSParser.TRUE:
+			case ICSSParser.FALSE:
+				lit = Literals.bool(token.getType() == ICSSParser.TRUE);
+				break;
+		}
 		currentContainer.push(lit);
 	}
+	/*
+	 Tokens from our own lexer already carry the value; for other tokens, or a value too
+	 large for an int, parse the text so the NumberFormatException is the same as before.
+	 */
+	static int intValue(Token token, int unitLength) {
+		if (LiteralToken.hasValue(token))
+			return LiteralToken.value(token);
+		String text = token.getText();
+		return Integer.parseInt(text.substring(0, text.length() - unitLength));
+	}
+	static int colorValue(Token token) {
+		return LiteralToken.hasValue(token) ? LiteralToken.value(token) : ColorLiteral.parse(token.getText());
+	}
 	@Override
 	public void exitMultiplyExpression(ICSSParser.MultiplyExpressionContext ctx) {
 		if (ctx.MUL() == null) return;
@@ -158,8 +186,8 @@ public class ASTListener extends ICSSBaseListener {
 		Expression left = (Expression) currentContainer.pop();
 
 		MultiplyOperation op = new MultiplyOperation();
-		op.lhs = left;
-		op.rhs = right;
+		op.addChild(left);
+		op.addChild(right);
 
 		currentContainer.push(op);
 	}
@@ -172,8 +200,8 @@ public class ASTListener extends ICSSBaseListener {
 		Expression left = (Expression) currentContainer.pop();
 
 		Operation op = ctx.PLUS() != null ? new AddOperation() : new SubtractOperation();
-		op.lhs = left;
-		op.rhs = right;
+		op.addChild(left);
+		op.addChild(right);
 
 		currentContainer.push(op);
 	}
@@ -181,15 +209,14 @@ public class ASTListener extends ICSSBaseListener {
 
 	@Override
 	public void exitExpression(ICSSParser.ExpressionContext ctx) {
+		//A parenthesized expression stays on the stack as an operand
+		if (ctx.getParent() instanceof ICSSParser.ValueContext)
+			return;
 		if (currentContainer.peek() instanceof Expression) {
 			Expression expr = (Expression) currentContainer.pop();
 			ASTNode top = currentContainer.peek();
-			if (top instanceof Declaration)
-				((Declaration) top).expression = expr;
-			else if (top instanceof VariableAssignment)
-				((VariableAssignment) top).expression = expr;
-			else if (top instanceof IfClause)
-				((IfClause) top).conditionalExpression = expr;
+			if (top instanceof Declaration || top instanceof VariableAssignment || top instanceof IfClause)
+				top.addChild(expr);
 		}
 	}
 }
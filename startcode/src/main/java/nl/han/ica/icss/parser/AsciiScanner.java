@@ -0,0 +1,232 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+
+/**
+ * Hand-written scanner for ICSS that works directly on a CharSequence.
+ * It produces the same token types as ICSSLexer, following the same rules: the longest match
+ * wins and on equal length the rule that comes first in ICSS.g4 wins (so "if" is IF, "#fff" is COLOR).
+ *
+ * The scanner does not allocate: the current token is kept in the type, start and end fields.
+ * It only handles valid ASCII input. Anything ICSSLexer would report as an error gives the
+ * token type ERROR, so the caller can fall back to the ANTLR lexer for the error message.
+ */
+class AsciiScanner {
+
+    static final int ERROR = -2;
+
+    private final CharSequence input;
+    private final int length;
+    private int position;
+
+    //Current token: input[start, end)
+    int type;
+    int start;
+    int end;
+
+    AsciiScanner(CharSequence input) {
+        this.input = input;
+        this.length = input.length();
+    }
+
+    /**
+     * Moves to the next token and returns its type. At the end of the input the type is EOF.
+     */
+    int next() {
+        while (position < length && isWhitespace(input.charAt(position)))
+            position++;
+
+        start = position;
+        if (position >= length) {
+            end = position;
+            return type = ICSSLexer.EOF;
+        }
+
+        char c = input.charAt(position);
+        int tokenType;
+        switch (c) {
+            case '[': tokenType = single(ICSSLexer.BOX_BRACKET_OPEN); break;
+            case ']': tokenType = single(ICSSLexer.BOX_BRACKET_CLOSE); break;
+            case '{': tokenType = single(ICSSLexer.OPEN_BRACE); break;
+            case '}': tokenType = single(ICSSLexer.CLOSE_BRACE); break;
+            case ';': tokenType = single(ICSSLexer.SEMICOLON); break;
+            case '+': tokenType = single(ICSSLexer.PLUS); break;
+            case '-': tokenType = single(ICSSLexer.MIN); break;
+            case '*': tokenType = single(ICSSLexer.MUL); break;
+            case '(': tokenType = single(ICSSLexer.LPAREN); break;
+            case ')': tokenType = single(ICSSLexer.RPAREN); break;
+            case ':':
+                if (charAt(position + 1) == '=') {
+                    position += 2;
+                    tokenType = ICSSLexer.ASSIGNMENT_OPERATOR;
+                } else {
+                    tokenType = single(ICSSLexer.COLON);
+                }
+                break;
+            case '#': tokenType = hash(); break;
+            case '.': tokenType = classIdent(); break;
+            default:
+                if (isDigit(c))
+                    tokenType = number();
+                else if (isLower(c))
+                    tokenType = lowerIdent();
+                else if (isUpper(c))
+                    tokenType = capitalIdent();
+                else
+                    tokenType = ERROR;
+        }
+        end = position;
+        return type = tokenType;
+    }
+
+    /**
+     * Value of a PIXELSIZE, PERCENTAGE or NUMBER token, or -1 when it does not fit in an int.
+     */
+    int intValue() {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (!isDigit(c))
+                break;
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE)
+                return -1;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Packed RGBA value of a COLOR token.
+     */
+    int colorValue() {
+        int hex = 0;
+        for (int i = start + 1; i < end; i++)
+            hex = hex << 4 | Character.digit(input.charAt(i), 16);
+        return ColorLiteral.fromHex(hex, end - start - 1);
+    }
+
+    String text() {
+        return input.subSequence(start, end).toString();
+    }
+
+    private int single(int tokenType) {
+        position++;
+        return tokenType;
+    }
+
+    /*
+     COLOR is '#' followed by 3 or 6 hex digits, IDIDENT is '#' [a-zA-Z-] [a-zA-Z0-9-]*.
+     */
+    private int hash() {
+        int colorLength = 0;
+        if (isHex(charAt(position + 1)) && isHex(charAt(position + 2)) && isHex(charAt(position + 3))) {
+            colorLength = 4;
+            if (isHex(charAt(position + 4)) && isHex(charAt(position + 5)) && isHex(charAt(position + 6)))
+                colorLength = 7;
+        }
+        int idLength = 0;
+        char first = charAt(position + 1);
+        if (isLetter(first) || first == '-') {
+            idLength = 2;
+            while (isIdIdentPart(charAt(position + idLength)))
+                idLength++;
+        }
+
+        if (colorLength == 0 && idLength == 0)
+            return ERROR;
+        if (colorLength >= idLength) {
+            position += colorLength;
+            return ICSSLexer.COLOR;
+        }
+        position += idLength;
+        return ICSSLexer.IDIDENT;
+    }
+
+    private int classIdent() {
+        int i = position + 1;
+        while (isLower(charAt(i)) || isDigit(charAt(i)) || charAt(i) == '-')
+            i++;
+        if (i == position + 1)
+            return ERROR;
+        position = i;
+        return ICSSLexer.CLASSIDENT;
+    }
+
+    private int number() {
+        while (isDigit(charAt(position)))
+            position++;
+        if (charAt(position) == 'p' && charAt(position + 1) == 'x') {
+            position += 2;
+            return ICSSLexer.PIXELSIZE;
+        }
+        if (charAt(position) == '%') {
+            position++;
+            return ICSSLexer.PERCENTAGE;
+        }
+        return ICSSLexer.NUMBER;
+    }
+
+    private int lowerIdent() {
+        position++;
+        while (isLower(charAt(position)) || isDigit(charAt(position)) || charAt(position) == '-')
+            position++;
+        if (matches("if"))
+            return ICSSLexer.IF;
+        if (matches("else"))
+            return ICSSLexer.ELSE;
+        return ICSSLexer.LOWERIDENT;
+    }
+
+    private int capitalIdent() {
+        position++;
+        while (isLetter(charAt(position)) || isDigit(charAt(position)) || charAt(position) == '_')
+            position++;
+        if (matches("TRUE"))
+            return ICSSLexer.TRUE;
+        if (matches("FALSE"))
+            return ICSSLexer.FALSE;
+        return ICSSLexer.CAPITALIDENT;
+    }
+
+    private boolean matches(String keyword) {
+        if (position - start != keyword.length())
+            return false;
+        for (int i = 0; i < keyword.length(); i++) {
+            if (input.charAt(start + i) != keyword.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private char charAt(int index) {
+        return index < length ? input.charAt(index) : 0;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLower(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isLetter(char c) {
+        return isLower(c) || isUpper(c);
+    }
+
+    private static boolean isHex(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isIdIdentPart(char c) {
+        return isLetter(c) || isDigit(c) || c == '-';
+    }
+}
@@ -0,0 +1,43 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * Random access view of a CharStream as a CharSequence, for the hand-written scanner.
+ * A CharStream holds code points, not chars: every code point that is not ASCII reads as NOT_ASCII,
+ * so one outside the BMP can not turn into an ASCII char by cutting it to 16 bits, and the scanner
+ * gives up on it. Moves the stream's position; seek back before lexing it again.
+ */
+class CharStreamSequence implements CharSequence {
+
+    static final char NOT_ASCII = '\uFFFF';
+
+    private final CharStream stream;
+
+    CharStreamSequence(CharStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public int length() {
+        return stream.size();
+    }
+
+    @Override
+    public char charAt(int index) {
+        stream.seek(index);
+        int codePoint = stream.LA(1);
+        return codePoint > 0x7F ? NOT_ASCII : (char) codePoint;
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return start == end ? "" : stream.getText(Interval.of(start, end - 1));
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+}
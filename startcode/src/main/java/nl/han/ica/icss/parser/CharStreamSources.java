@@ -0,0 +1,109 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+/**
+ * Reads UTF-8 input straight into the code point buffer of an ANTLR CharStream, without
+ * building a String or a byte[] copy of the whole input first.
+ */
+public final class CharStreamSources {
+
+    /**
+     * Files of this size or bigger are memory-mapped instead of read through a buffer.
+     */
+    public static final long MAPPED_THRESHOLD = 1 << 20;
+
+    private static final int BUFFER_SIZE = 1 << 14;
+
+    private CharStreamSources() { }
+
+    public static CharStream fromPath(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAPPED_THRESHOLD) {
+                return CharStreams.fromChannel(channel, StandardCharsets.UTF_8, BUFFER_SIZE,
+                        CodingErrorAction.REPLACE, path.toString(), size);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too big to parse (" + size + " bytes)");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return fromBuffer(mapped, path.toString());
+        }
+    }
+
+    /**
+     * Like fromPath, and also adds the bytes that are decoded to the digest, each byte read once:
+     * the digest is that of the content that was parsed, also when the file changes meanwhile.
+     * The file is read through a buffer, not memory-mapped.
+     */
+    public static CharStream fromPath(Path path, MessageDigest digest) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too big to parse (" + size + " bytes)");
+            }
+            ReadableByteChannel digested = Channels.newChannel(
+                    new DigestInputStream(Channels.newInputStream(channel), digest));
+            return CharStreams.fromChannel(digested, StandardCharsets.UTF_8, BUFFER_SIZE,
+                    CodingErrorAction.REPLACE, path.toString(), size);
+        }
+    }
+
+    public static CharStream fromChannel(ReadableByteChannel channel, String sourceName) throws IOException {
+        return CharStreams.fromChannel(channel, StandardCharsets.UTF_8, BUFFER_SIZE,
+                CodingErrorAction.REPLACE, sourceName, -1);
+    }
+
+    /*
+     Same decode loop as CharStreams.fromChannel, but over a buffer that already holds all bytes.
+     A high surrogate at the end of a chunk stays in the CharBuffer until its low surrogate is decoded.
+     */
+    private static CharStream fromBuffer(ByteBuffer utf8Bytes, String sourceName) throws CharacterCodingException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CodePointBuffer.Builder codePoints = CodePointBuffer.builder(utf8Bytes.remaining());
+        CharBuffer utf16 = CharBuffer.allocate(BUFFER_SIZE);
+
+        CoderResult result;
+        do {
+            result = decoder.decode(utf8Bytes, utf16, true);
+            drain(utf16, codePoints);
+        } while (result.isOverflow());
+        do {
+            result = decoder.flush(utf16);
+            drain(utf16, codePoints);
+        } while (result.isOverflow());
+        if (result.isError()) {
+            result.throwException();
+        }
+
+        return CodePointCharStream.fromBuffer(codePoints.build(), sourceName);
+    }
+
+    private static void drain(CharBuffer utf16, CodePointBuffer.Builder codePoints) {
+        utf16.flip();
+        codePoints.append(utf16);
+        utf16.compact();
+    }
+}
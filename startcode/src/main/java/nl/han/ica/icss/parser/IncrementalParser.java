@@ -0,0 +1,217 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps a document and its AST in sync while the document is edited.
+ * An ICSS stylesheet is a sequence of independent top-level units (variable assignments and
+ * stylerules), so an edit only re-parses the units it touches plus the whitespace around them,
+ * and splices the new nodes into the existing Stylesheet. Unchanged units keep their node objects.
+ *
+ * Whenever the re-parsed part has a syntax error, or the previous state had one, the whole
+ * document is parsed again so the errors are the same as those of a full parse.
+ *
+ * The AST belongs to this parser: checking it is fine, but transform a copy, since the spans
+ * only match as long as the children of the Stylesheet are the ones this parser put there.
+ */
+public class IncrementalParser {
+
+    private final ParseOptions options;
+    private final StringBuilder text;
+    private final List<String> errors = new ArrayList<>();
+    private AST ast;
+
+    //Source span of every child of the Stylesheet: [unitStart[i], unitEnd[i]) in UTF-16 offsets
+    private int[] unitStart = new int[16];
+    private int[] unitEnd = new int[16];
+    private int units;
+
+    //Spans are code point offsets, they only equal String offsets without surrogate pairs
+    private boolean hasSurrogates;
+
+    private int lastReparsedLength;
+
+    public IncrementalParser(String text) {
+        this(text, ParseOptions.DEFAULT);
+    }
+
+    public IncrementalParser(String text, ParseOptions options) {
+        this.options = options;
+        this.text = new StringBuilder(text);
+        parseAll();
+    }
+
+    public AST getAST() {
+        return ast;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Number of characters that were parsed for the last edit (the whole document after a full parse).
+     */
+    public int getLastReparsedLength() {
+        return lastReparsedLength;
+    }
+
+    /**
+     * Replaces removedLength characters at offset with the inserted text and updates the AST.
+     * @return the updated AST; the same object as before unless the whole document had to be parsed again
+     */
+    public AST applyEdit(int offset, int removedLength, String inserted) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > text.length())
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removedLength)
+                    + ") is outside the document of length " + text.length());
+
+        int oldLength = text.length();
+        text.replace(offset, offset + removedLength, inserted);
+        hasSurrogates |= containsSurrogates(inserted);
+
+        if (!errors.isEmpty() || hasSurrogates || ast.root.body.size() != units) {
+            parseAll();
+            return ast;
+        }
+
+        int editEnd = offset + removedLength;
+        int delta = inserted.length() - removedLength;
+
+        //Units that overlap or touch the edit; first > last when the edit only touches whitespace between units
+        int first = 0;
+        while (first < units && unitEnd[first] < offset)
+            first++;
+        int last = units - 1;
+        while (last >= 0 && unitStart[last] > editEnd)
+            last--;
+
+        //Re-parse from the end of the unit before the edit to the start of the unit after it
+        int regionStart = first > 0 ? unitEnd[first - 1] : 0;
+        int regionEnd = (last + 1 < units ? unitStart[last + 1] : oldLength) + delta;
+
+        SpanListener listener = parse(text.substring(regionStart, regionEnd));
+        if (!errors.isEmpty()) {
+            parseAll();
+            return ast;
+        }
+        lastReparsedLength = regionEnd - regionStart;
+
+        splice(first, last, listener, regionStart, delta);
+        return ast;
+    }
+
+    private void parseAll() {
+        String source = text.toString();
+        hasSurrogates = containsSurrogates(source);
+        lastReparsedLength = source.length();
+
+        SpanListener listener = parse(source);
+        ast = listener.getAST();
+        units = 0;
+        if (errors.isEmpty() && !hasSurrogates) {
+            ensureCapacity(listener.count);
+            System.arraycopy(listener.starts, 0, unitStart, 0, listener.count);
+            System.arraycopy(listener.ends, 0, unitEnd, 0, listener.count);
+            units = listener.count;
+        }
+    }
+
+    private SpanListener parse(String source) {
+        errors.clear();
+        try {
+            return ParserDriver.parse(CharStreams.fromString(source), new SyntaxErrorCollector(errors),
+                    options, SpanListener::new);
+        } catch (RecognitionException e) {
+            errors.add(e.getMessage());
+        } catch (ParseCancellationException e) {
+            errors.add("Syntax error");
+        }
+        return new SpanListener();
+    }
+
+    /*
+     Replaces units first..last with the units of the re-parsed region, in the AST and in the span table.
+     */
+    private void splice(int first, int last, SpanListener region, int regionStart, int delta) {
+        int removed = last - first + 1;
+        int added = region.count;
+
+        ast.root.replaceChildren(first, first + removed, region.getAST().root.body);
+
+        ensureCapacity(units - removed + added);
+        int tail = units - (last + 1);
+        System.arraycopy(unitStart, last + 1, unitStart, first + added, tail);
+        System.arraycopy(unitEnd, last + 1, unitEnd, first + added, tail);
+        for (int i = first + added; i < first + added + tail; i++) {
+            unitStart[i] += delta;
+            unitEnd[i] += delta;
+        }
+        for (int i = 0; i < added; i++) {
+            unitStart[first + i] = regionStart + region.starts[i];
+            unitEnd[first + i] = regionStart + region.ends[i];
+        }
+        units = units - removed + added;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > unitStart.length) {
+            int length = Math.max(capacity, unitStart.length * 2);
+            unitStart = Arrays.copyOf(unitStart, length);
+            unitEnd = Arrays.copyOf(unitEnd, length);
+        }
+    }
+
+    private static boolean containsSurrogates(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            if (Character.isSurrogate(chars.charAt(i)))
+                return true;
+        }
+        return false;
+    }
+
+    /*
+     ASTListener that also records the source span of every top-level unit.
+     */
+    private static class SpanListener extends ASTListener {
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int count;
+
+        @Override
+        public void exitStylerule(ICSSParser.StyleruleContext ctx) {
+            super.exitStylerule(ctx);
+            record(ctx);
+        }
+
+        @Override
+        public void exitVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+            super.exitVariableAssignment(ctx);
+            record(ctx);
+        }
+
+        private void record(ParserRuleContext ctx) {
+            if (!(ctx.getParent() instanceof ICSSParser.StylesheetContext))
+                return;
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = ctx.getStart().getStartIndex();
+            ends[count] = ctx.getStop().getStopIndex() + 1;
+            count++;
+        }
+    }
+}
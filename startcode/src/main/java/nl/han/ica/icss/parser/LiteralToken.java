@@ -0,0 +1,93 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * Token that carries the decoded value of a PIXELSIZE, PERCENTAGE, NUMBER or COLOR token,
+ * so the ASTListener does not have to cut and parse its text.
+ */
+class LiteralToken extends CommonToken {
+
+    private static final long serialVersionUID = 1L;
+
+    //False when the number does not fit in an int, or the token was made with explicit text
+    boolean hasValue;
+    //The number without its unit, or for a COLOR the packed RGBA value
+    int value;
+
+    LiteralToken(Pair<TokenSource, CharStream> source, int type, int channel, int start, int stop) {
+        super(source, type, channel, start, stop);
+    }
+
+    static boolean hasValue(Token token) {
+        return token instanceof LiteralToken && ((LiteralToken) token).hasValue;
+    }
+
+    static int value(Token token) {
+        return ((LiteralToken) token).value;
+    }
+
+    /**
+     * Creates LiteralTokens for the literal tokens and plain CommonTokens for all others.
+     * The value is read from the lexer's input while it is still positioned just after the token,
+     * looking back with LA(-k), so the stream does not move and no text is copied.
+     */
+    static class Factory extends CommonTokenFactory {
+
+        static final Factory INSTANCE = new Factory();
+
+        @Override
+        public CommonToken create(Pair<TokenSource, CharStream> source, int type, String text,
+                                  int channel, int start, int stop, int line, int charPositionInLine) {
+            if (type != ICSSLexer.PIXELSIZE && type != ICSSLexer.PERCENTAGE && type != ICSSLexer.NUMBER
+                    && type != ICSSLexer.COLOR)
+                return super.create(source, type, text, channel, start, stop, line, charPositionInLine);
+
+            LiteralToken token = new LiteralToken(source, type, channel, start, stop);
+            token.setLine(line);
+            token.setCharPositionInLine(charPositionInLine);
+            if (text != null) {
+                token.setText(text);
+            } else if (source.b != null && source.b.index() == stop + 1) {
+                if (type == ICSSLexer.COLOR)
+                    decodeColor(token, source.b);
+                else
+                    decodeNumber(token, source.b);
+            }
+            return token;
+        }
+
+        //LA(-1) is the last character of the token, LA(start - index) the first
+
+        private static void decodeNumber(LiteralToken token, CharStream input) {
+            int index = input.index();
+            long value = 0;
+            for (int i = token.getStartIndex(); i <= token.getStopIndex(); i++) {
+                int c = input.LA(i - index);
+                if (c < '0' || c > '9')
+                    break;
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE)
+                    return;
+            }
+            token.value = (int) value;
+            token.hasValue = true;
+        }
+
+        private static void decodeColor(LiteralToken token, CharStream input) {
+            int index = input.index();
+            int hex = 0;
+            //Skip the '#'
+            for (int i = token.getStartIndex() + 1; i <= token.getStopIndex(); i++)
+                hex = hex << 4 | Character.digit(input.LA(i - index), 16);
+            token.value = ColorLiteral.fromHex(hex, token.getStopIndex() - token.getStartIndex());
+            token.hasValue = true;
+        }
+    }
+}
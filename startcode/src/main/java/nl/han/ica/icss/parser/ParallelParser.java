@@ -0,0 +1,94 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Stylesheet;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Parses a large stylesheet on several cores.
+ * The top-level units of a stylesheet (variable assignments and stylerules) do not depend on each
+ * other while parsing, so the input is cut after every '}' and ';' outside braces, the pieces are
+ * grouped into chunks of at least minChunkLength characters, and the chunks are parsed concurrently.
+ * Their children are merged into one Stylesheet in source order, so scoping is unchanged.
+ *
+ * When any chunk has a syntax error the whole input is parsed again in one piece, so errors are
+ * reported exactly as without this class.
+ */
+final class ParallelParser {
+
+    static final int DEFAULT_MIN_CHUNK_LENGTH = 64 * 1024;
+
+    private ParallelParser() { }
+
+    static boolean isWorthSplitting(int length, ParseOptions options) {
+        return options.isParallel() && length >= 2 * DEFAULT_MIN_CHUNK_LENGTH;
+    }
+
+    static AST parse(CharSequence input, ANTLRErrorListener errorListener, ParseOptions options) {
+        return parse(input, errorListener, options, DEFAULT_MIN_CHUNK_LENGTH);
+    }
+
+    static AST parse(CharSequence input, ANTLRErrorListener errorListener, ParseOptions options, int minChunkLength) {
+        ParseOptions sequential = options.withParallel(false);
+        List<CharSequence> chunks = split(input, minChunkLength);
+        if (chunks.size() > 1) {
+            List<AST> parsed = chunks.parallelStream()
+                    .map(chunk -> parseChunk(chunk, sequential))
+                    .collect(Collectors.toList());
+            if (!parsed.contains(null)) {
+                Stylesheet stylesheet = new Stylesheet();
+                for (AST ast : parsed)
+                    stylesheet.replaceChildren(stylesheet.body.size(), stylesheet.body.size(), ast.root.body);
+                return new AST(stylesheet);
+            }
+        }
+        return ParserDriver.parse(input, errorListener, sequential);
+    }
+
+    /*
+     @return the AST of the chunk, or null when it has a syntax error
+     */
+    private static AST parseChunk(CharSequence chunk, ParseOptions options) {
+        List<String> errors = new ArrayList<>();
+        try {
+            AST ast = ParserDriver.parse(chunk, new SyntaxErrorCollector(errors), options);
+            return errors.isEmpty() ? ast : null;
+        } catch (RecognitionException | ParseCancellationException e) {
+            return null;
+        }
+    }
+
+    /*
+     Cuts the input after top-level '}' and ';' once a chunk is long enough. Unbalanced braces
+     give a single chunk, which leaves the error to the sequential parse.
+     */
+    static List<CharSequence> split(CharSequence input, int minChunkLength) {
+        List<CharSequence> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        int depth = 0;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                if (--depth < 0)
+                    return List.of(input);
+            }
+            if (depth == 0 && (c == '}' || c == ';') && i + 1 - chunkStart >= minChunkLength) {
+                chunks.add(input.subSequence(chunkStart, i + 1));
+                chunkStart = i + 1;
+            }
+        }
+        if (depth != 0)
+            return List.of(input);
+        if (chunkStart < input.length())
+            chunks.add(input.subSequence(chunkStart, input.length()));
+        return chunks;
+    }
+}
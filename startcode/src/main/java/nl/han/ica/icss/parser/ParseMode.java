@@ -0,0 +1,16 @@
+package nl.han.ica.icss.parser;
+
+/**
+ * How the ANTLR parser predicts alternatives.
+ */
+public enum ParseMode {
+    /**
+     * Full ALL(*) prediction with the default error strategy, in a single pass.
+     */
+    LL,
+    /**
+     * First try the cheaper SLL prediction and bail out at the first syntax error,
+     * then re-parse with full LL only when that fails. Gives the same AST and errors as LL.
+     */
+    SLL_THEN_LL
+}
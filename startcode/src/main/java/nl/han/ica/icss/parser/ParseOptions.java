@@ -0,0 +1,65 @@
+package nl.han.ica.icss.parser;
+
+/**
+ * Immutable settings for ParserDriver. Use the with-methods to derive a changed copy.
+ */
+public final class ParseOptions {
+
+    public static final ParseOptions DEFAULT = new ParseOptions(ParserKind.ANTLR, ParseMode.SLL_THEN_LL, false, false);
+
+    private final ParserKind parser;
+    private final ParseMode mode;
+    private final boolean buildParseTree;
+    private final boolean parallel;
+
+    private ParseOptions(ParserKind parser, ParseMode mode, boolean buildParseTree, boolean parallel) {
+        this.parser = parser;
+        this.mode = mode;
+        this.buildParseTree = buildParseTree;
+        this.parallel = parallel;
+    }
+
+    public ParserKind getParser() {
+        return parser;
+    }
+
+    /**
+     * Mode of the ANTLR parser, also when it only runs as fallback for the recursive descent parser.
+     */
+    public ParseMode getMode() {
+        return mode;
+    }
+
+    /**
+     * When true, the parser builds a full parse tree that is walked afterwards to extract the AST.
+     * When false (the default), the ASTListener runs as a parse listener and the AST is built in
+     * the same pass, without keeping a parse tree.
+     */
+    public boolean isBuildParseTree() {
+        return buildParseTree;
+    }
+
+    /**
+     * When true, large inputs are split into chunks of top-level units that are parsed on the
+     * common fork-join pool, see ParallelParser. Small inputs are always parsed in one piece.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public ParseOptions withParser(ParserKind parser) {
+        return new ParseOptions(parser, mode, buildParseTree, parallel);
+    }
+
+    public ParseOptions withMode(ParseMode mode) {
+        return new ParseOptions(parser, mode, buildParseTree, parallel);
+    }
+
+    public ParseOptions withBuildParseTree(boolean buildParseTree) {
+        return new ParseOptions(parser, mode, buildParseTree, parallel);
+    }
+
+    public ParseOptions withParallel(boolean parallel) {
+        return new ParseOptions(parser, mode, buildParseTree, parallel);
+    }
+}
@@ -0,0 +1,171 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs the lexer, the parser and the ASTListener on an input.
+ * Holds no state of its own and takes its parsers from the ParserPool of the calling thread,
+ * so it can be used from several threads at once.
+ */
+public final class ParserDriver {
+
+    private ParserDriver() { }
+
+    public static AST parse(CharStream input, ANTLRErrorListener errorListener) {
+        return parse(input, errorListener, ParseOptions.DEFAULT);
+    }
+
+    /**
+     * Parses the input and extracts the AST. Syntax errors are reported to the given listener;
+     * RecognitionExceptions and ParseCancellationExceptions are left for the caller.
+     */
+    public static AST parse(CharStream input, ANTLRErrorListener errorListener, ParseOptions options) {
+        if (ParallelParser.isWorthSplitting(input.size(), options))
+            return ParallelParser.parse(input.getText(Interval.of(0, input.size() - 1)), errorListener, options);
+        if (options.getParser() == ParserKind.RECURSIVE_DESCENT) {
+            AST ast = RecursiveDescentParser.tryParse(new CharStreamSequence(input));
+            input.seek(0);
+            if (ast != null)
+                return ast;
+        }
+        return parse(input, errorListener, options, ASTListener::new).getAST();
+    }
+
+    /**
+     * Same as parse(CharStream, ...), but lets the recursive descent parser read the characters directly.
+     */
+    public static AST parse(CharSequence input, ANTLRErrorListener errorListener, ParseOptions options) {
+        if (ParallelParser.isWorthSplitting(input.length(), options))
+            return ParallelParser.parse(input, errorListener, options);
+        if (options.getParser() == ParserKind.RECURSIVE_DESCENT) {
+            AST ast = RecursiveDescentParser.tryParse(input);
+            if (ast != null)
+                return ast;
+        }
+        return parse(CharStreams.fromString(input.toString()), errorListener, options, ASTListener::new).getAST();
+    }
+
+    /**
+     * Like parse, but with a listener of the caller's own type, e.g. an ASTListener that also records
+     * source positions.
+     * A new listener is created for every pass, the one of the pass that produced the AST is returned.
+     * Always uses the ANTLR parser on the whole input, whatever parser the options ask for.
+     */
+    public static <L extends ParseTreeListener> L parse(CharStream input, ANTLRErrorListener errorListener,
+                                                  ParseOptions options, Supplier<L> listenerFactory) {
+        //Lex and parse with the Antlr generated lexer and parser of this thread
+        ParserPool.Instance instance = ParserPool.acquire(input, errorListener);
+        try {
+            ICSSParser parser = instance.parser;
+
+            /*
+             SLL is enough for almost every valid input. Errors are not reported in the SLL pass:
+             a syntax error under SLL might be a false alarm, and a real one is reported by the LL pass.
+             The tokens are buffered, so the LL pass does not lex again and lexer errors are reported once.
+             */
+            if (options.getMode() == ParseMode.SLL_THEN_LL) {
+                try {
+                    return parseOnce(parser, PredictionMode.SLL, null, options.isBuildParseTree(), listenerFactory);
+                } catch (ParseCancellationException e) {
+                    parser.reset();
+                }
+            }
+            return parseOnce(parser, PredictionMode.LL, errorListener, options.isBuildParseTree(), listenerFactory);
+        } finally {
+            ParserPool.release(instance);
+        }
+    }
+
+    /*
+     Without an error listener the parse bails out at the first syntax error.
+     */
+    private static <L extends ParseTreeListener> L parseOnce(ICSSParser parser, PredictionMode predictionMode,
+                                                       ANTLRErrorListener errorListener, boolean buildParseTree,
+                                                       Supplier<L> listenerFactory) {
+        parser.removeErrorListeners();
+        parser.removeParseListeners();
+        StopListenerOnError stopOnError = new StopListenerOnError();
+        if (errorListener != null) {
+            parser.addErrorListener(errorListener);
+            parser.addErrorListener(stopOnError);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+        } else {
+            parser.setErrorHandler(new DetachingBailErrorStrategy());
+        }
+        parser.getInterpreter().setPredictionMode(predictionMode);
+
+        L listener = listenerFactory.get();
+        if (buildParseTree) {
+            parser.setBuildParseTree(true);
+            ParseTree parseTree = parser.stylesheet();
+
+            //Extract AST from the Antlr parse tree
+            try {
+                ParseTreeWalker.DEFAULT.walk(listener, parseTree);
+            } catch (RuntimeException e) {
+                if (!stopOnError.seen)
+                    throw e;
+            }
+        } else {
+            //Build the AST while parsing; rule contexts are dropped as soon as the rule is done
+            parser.setBuildParseTree(false);
+            parser.addParseListener(listener);
+            parser.stylesheet();
+            parser.removeParseListeners();
+        }
+        return listener;
+    }
+
+    /*
+     After a syntax error the rest of the AST is of no use, and the events for the recovered rules
+     can leave the ASTListener's stack in a state it cannot handle. So a parse listener is detached
+     at the first error, and a tree walk that fails after an error keeps the AST built so far.
+     */
+    private static class StopListenerOnError extends BaseErrorListener {
+        private boolean seen;
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            seen = true;
+            if (recognizer instanceof Parser)
+                ((Parser) recognizer).removeParseListeners();
+        }
+    }
+
+    /*
+     While a bail-out unwinds the rules, the parser still sends exit events to its parse listeners.
+     The AST of a half-parsed input is thrown away anyway, so the listeners are detached first.
+     */
+    private static class DetachingBailErrorStrategy extends BailErrorStrategy {
+        @Override
+        public void recover(Parser recognizer, RecognitionException e) {
+            recognizer.removeParseListeners();
+            super.recover(recognizer, e);
+        }
+
+        @Override
+        public Token recoverInline(Parser recognizer) throws RecognitionException {
+            recognizer.removeParseListeners();
+            return super.recoverInline(recognizer);
+        }
+    }
+}
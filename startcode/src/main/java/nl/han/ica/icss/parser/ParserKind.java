@@ -0,0 +1,16 @@
+package nl.han.ica.icss.parser;
+
+/**
+ * Which parser builds the AST.
+ */
+public enum ParserKind {
+    /**
+     * The ANTLR generated ICSSLexer and ICSSParser with the ASTListener.
+     */
+    ANTLR,
+    /**
+     * The hand-written AsciiScanner and RecursiveDescentParser. Input it cannot parse is handed
+     * to the ANTLR parser, which stays the reference for syntax error messages.
+     */
+    RECURSIVE_DESCENT
+}
@@ -0,0 +1,197 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps one lexer, token stream and parser per thread, so a parse only resets them with
+ * setInputStream instead of building new ones.
+ *
+ * Also owns the DFA cache of those parsers: the DFA states and prediction contexts that ANTLR adds
+ * while parsing and that all pooled parsers share. It only grows, so it is dropped when it gets
+ * bigger than the limit. Dropping never changes a cache a parse may be using: a new, empty cache
+ * replaces it, every parser switches to the new one at its next acquire, and parses that are
+ * running finish on the old one, which is then garbage.
+ */
+public final class ParserPool {
+
+    public static final int DEFAULT_DFA_STATE_LIMIT = 100_000;
+
+    //Bundled examples that cover every rule of the grammar
+    private static final List<String> WARM_UP_RESOURCES = List.of(
+            "level0.icss", "level1.icss", "level2.icss", "level3.icss", "complex.icss");
+
+    private static final ThreadLocal<Instance> INSTANCES = ThreadLocal.withInitial(Instance::new);
+
+    private static volatile int dfaStateLimit = DEFAULT_DFA_STATE_LIMIT;
+
+    private static final AtomicReference<DfaCache> DFA_CACHE = new AtomicReference<>(new DfaCache());
+
+    private ParserPool() { }
+
+    /**
+     * Returns the parser of this thread, reset to read the input. Every acquire must be
+     * followed by a release. A nested acquire on the same thread gets a new instance.
+     */
+    static Instance acquire(CharStream input, ANTLRErrorListener errorListener) {
+        Instance instance = INSTANCES.get();
+        if (instance.inUse) {
+            instance = new Instance();
+        }
+        instance.inUse = true;
+        instance.useCache(DFA_CACHE.get());
+        instance.reset(input, errorListener);
+        return instance;
+    }
+
+    static void release(Instance instance) {
+        //Drop the references to the input, tokens and parse tree so they can be collected
+        instance.reset(instance.emptyInput, null);
+        instance.inUse = false;
+
+        //Only the first thread to see the cache of this parse over the limit replaces it
+        int limit = dfaStateLimit;
+        DfaCache cache = instance.cache;
+        if (limit > 0 && cache.stateCount() > limit) {
+            DFA_CACHE.compareAndSet(cache, new DfaCache());
+        }
+    }
+
+    /**
+     * Parses the bundled example stylesheets in every parse mode, so ANTLR's DFA cache is
+     * filled before the first real request comes in.
+     * @return the number of examples that were parsed
+     */
+    public static int warmUp() {
+        int parsed = 0;
+        List<String> ignoredErrors = new ArrayList<>();
+        ClassLoader classLoader = ParserPool.class.getClassLoader();
+        for (String resource : WARM_UP_RESOURCES) {
+            try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+                if (inputStream == null)
+                    continue;
+                CharStream input = CharStreams.fromStream(inputStream);
+                for (ParseMode mode : ParseMode.values()) {
+                    input.seek(0);
+                    ParserDriver.parse(input, new SyntaxErrorCollector(ignoredErrors),
+                            ParseOptions.DEFAULT.withMode(mode));
+                }
+                parsed++;
+            } catch (IOException | RuntimeException e) {
+                //A broken example only makes the warm-up less effective
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Number of states in the DFA cache of the lexer and the parser together.
+     * Only reads the cache, it does not create a parser for the calling thread.
+     */
+    public static int getDfaStateCount() {
+        return DFA_CACHE.get().stateCount();
+    }
+
+    /**
+     * Number of prediction contexts in the cache of the lexer and the parser together.
+     */
+    public static int getPredictionContextCount() {
+        DfaCache cache = DFA_CACHE.get();
+        return cache.lexerContexts.size() + cache.parserContexts.size();
+    }
+
+    /**
+     * Replaces the DFA states and prediction contexts by an empty cache, see the class comment.
+     */
+    public static void clearDfaCache() {
+        DFA_CACHE.set(new DfaCache());
+    }
+
+    public static int getDfaStateLimit() {
+        return dfaStateLimit;
+    }
+
+    /**
+     * Sets the number of DFA states after which the cache is cleared. Zero or less means no limit.
+     */
+    public static void setDfaStateLimit(int limit) {
+        dfaStateLimit = limit;
+    }
+
+    private static int countStates(DFA[] decisionToDFA) {
+        int states = 0;
+        for (DFA dfa : decisionToDFA) {
+            states += dfa.states.size();
+        }
+        return states;
+    }
+
+    private static DFA[] newDecisionToDFA(ATN atn) {
+        DFA[] decisionToDFA = new DFA[atn.getNumberOfDecisions()];
+        for (int i = 0; i < decisionToDFA.length; i++) {
+            decisionToDFA[i] = new DFA(atn.getDecisionState(i), i);
+        }
+        return decisionToDFA;
+    }
+
+    /*
+     One generation of the shared cache. Instead of the static arrays of the generated lexer and
+     parser, which cannot be replaced.
+     */
+    private static final class DfaCache {
+        final DFA[] lexerDFA = newDecisionToDFA(ICSSLexer._ATN);
+        final PredictionContextCache lexerContexts = new PredictionContextCache();
+        final DFA[] parserDFA = newDecisionToDFA(ICSSParser._ATN);
+        final PredictionContextCache parserContexts = new PredictionContextCache();
+
+        int stateCount() {
+            return countStates(lexerDFA) + countStates(parserDFA);
+        }
+    }
+
+    static final class Instance {
+        //Every instance has its own, the lexer moves through whatever stream it is given
+        private final CharStream emptyInput = CharStreams.fromString("");
+        final ICSSLexer lexer = new ICSSLexer(emptyInput);
+        final CommonTokenStream tokens = new CommonTokenStream(lexer);
+        final ICSSParser parser = new ICSSParser(tokens);
+        private boolean inUse;
+        private DfaCache cache;
+
+        Instance() {
+            lexer.setTokenFactory(LiteralToken.Factory.INSTANCE);
+        }
+
+        private void useCache(DfaCache current) {
+            if (cache == current)
+                return;
+            cache = current;
+            lexer.setInterpreter(new LexerATNSimulator(lexer, ICSSLexer._ATN, current.lexerDFA, current.lexerContexts));
+            parser.setInterpreter(new ParserATNSimulator(parser, ICSSParser._ATN, current.parserDFA, current.parserContexts));
+        }
+
+        private void reset(CharStream input, ANTLRErrorListener errorListener) {
+            lexer.setInputStream(input);
+            lexer.removeErrorListeners();
+            if (errorListener != null)
+                lexer.addErrorListener(errorListener);
+            //Clears the buffered tokens but keeps the list
+            tokens.setTokenSource(lexer);
+            parser.setInputStream(tokens);
+            parser.removeParseListeners();
+        }
+    }
+}
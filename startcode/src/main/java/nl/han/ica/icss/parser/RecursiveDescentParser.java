@@ -0,0 +1,207 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.*;
+import nl.han.ica.icss.ast.selectors.*;
+
+
+/**
+ * Hand-written parser for ICSS that builds the same AST as ICSSParser with the ASTListener.
+ * Statements are parsed by recursive descent with one token of lookahead, expressions by
+ * precedence climbing (* binds stronger than + and -, all left associative).
+ *
+ * It gives up on the first problem it sees, so the ANTLR parser can produce the error messages:
+ * tryParse returns null for any input that is not a valid ASCII stylesheet.
+ */
+public class RecursiveDescentParser {
+
+    private static final int NO_OPERATOR = 0;
+    private static final int ADDITIVE = 1;
+    private static final int MULTIPLICATIVE = 2;
+
+    private final AsciiScanner scanner;
+
+    private RecursiveDescentParser(CharSequence input) {
+        scanner = new AsciiScanner(input);
+    }
+
+    /**
+     * @return the AST, or null when the input has a lexical or syntax error
+     */
+    public static AST tryParse(CharSequence input) {
+        RecursiveDescentParser parser = new RecursiveDescentParser(input);
+        try {
+            return new AST(parser.stylesheet());
+        } catch (GiveUp e) {
+            return null;
+        }
+    }
+
+    private Stylesheet stylesheet() {
+        Stylesheet stylesheet = new Stylesheet();
+        scanner.next();
+        while (scanner.type != ICSSLexer.EOF) {
+            if (scanner.type == ICSSLexer.CAPITALIDENT)
+                stylesheet.addChild(variableAssignment());
+            else
+                stylesheet.addChild(stylerule());
+        }
+        return stylesheet;
+    }
+
+    private Stylerule stylerule() {
+        Stylerule rule = new Stylerule();
+        switch (scanner.type) {
+            case ICSSLexer.LOWERIDENT: rule.addChild(new TagSelector(scanner.text())); break;
+            case ICSSLexer.IDIDENT: rule.addChild(new IdSelector(scanner.text())); break;
+            case ICSSLexer.CLASSIDENT: rule.addChild(new ClassSelector(scanner.text())); break;
+            default: throw GiveUp.INSTANCE;
+        }
+        scanner.next();
+        expect(ICSSLexer.OPEN_BRACE);
+        statements(rule);
+        expect(ICSSLexer.CLOSE_BRACE);
+        return rule;
+    }
+
+    private void statements(ASTNode parent) {
+        while (true) {
+            switch (scanner.type) {
+                case ICSSLexer.LOWERIDENT: parent.addChild(declaration()); break;
+                case ICSSLexer.CAPITALIDENT: parent.addChild(variableAssignment()); break;
+                case ICSSLexer.IF: parent.addChild(ifClause()); break;
+                default: return;
+            }
+        }
+    }
+
+    private Declaration declaration() {
+        Declaration declaration = new Declaration();
+        declaration.addChild(new PropertyName(scanner.text()));
+        scanner.next();
+        expect(ICSSLexer.COLON);
+        declaration.setExpression(expression(ADDITIVE));
+        expect(ICSSLexer.SEMICOLON);
+        return declaration;
+    }
+
+    private VariableAssignment variableAssignment() {
+        VariableAssignment assignment = new VariableAssignment();
+        assignment.addChild(new VariableReference(scanner.text()));
+        scanner.next();
+        expect(ICSSLexer.ASSIGNMENT_OPERATOR);
+        assignment.setExpression(expression(ADDITIVE));
+        expect(ICSSLexer.SEMICOLON);
+        return assignment;
+    }
+
+    private IfClause ifClause() {
+        IfClause ifClause = new IfClause();
+        scanner.next();
+        expect(ICSSLexer.BOX_BRACKET_OPEN);
+        ifClause.setConditionalExpression(expression(ADDITIVE));
+        expect(ICSSLexer.BOX_BRACKET_CLOSE);
+        expect(ICSSLexer.OPEN_BRACE);
+        statements(ifClause);
+        expect(ICSSLexer.CLOSE_BRACE);
+        if (scanner.type == ICSSLexer.ELSE) {
+            scanner.next();
+            ElseClause elseClause = new ElseClause();
+            ifClause.addChild(elseClause);
+            expect(ICSSLexer.OPEN_BRACE);
+            statements(elseClause);
+            expect(ICSSLexer.CLOSE_BRACE);
+        }
+        return ifClause;
+    }
+
+    /*
+     Precedence climbing: parses operands and every operator that binds at least as strong as
+     minPrecedence. The right operand only takes operators that bind stronger, which makes
+     operators of equal precedence left associative.
+     */
+    private Expression expression(int minPrecedence) {
+        Expression left = value();
+        int precedence = precedence(scanner.type);
+        while (precedence != NO_OPERATOR && precedence >= minPrecedence) {
+            Operation operation = operation(scanner.type);
+            scanner.next();
+            operation.setLhs(left);
+            operation.setRhs(expression(precedence + 1));
+            left = operation;
+            precedence = precedence(scanner.type);
+        }
+        return left;
+    }
+
+    private Expression value() {
+        Expression value;
+        switch (scanner.type) {
+            case ICSSLexer.PIXELSIZE: value = Literals.pixel(intValue()); break;
+            case ICSSLexer.PERCENTAGE: value = Literals.percentage(intValue()); break;
+            case ICSSLexer.NUMBER: value = Literals.scalar(intValue()); break;
+            case ICSSLexer.COLOR: value = Literals.color(scanner.colorValue()); break;
+            case ICSSLexer.TRUE: value = Literals.TRUE; break;
+            case ICSSLexer.FALSE: value = Literals.FALSE; break;
+            case ICSSLexer.CAPITALIDENT: value = new VariableReference(scanner.text()); break;
+            case ICSSLexer.LPAREN:
+                scanner.next();
+                value = expression(ADDITIVE);
+                if (scanner.type != ICSSLexer.RPAREN)
+                    throw GiveUp.INSTANCE;
+                break;
+            default:
+                throw GiveUp.INSTANCE;
+        }
+        scanner.next();
+        return value;
+    }
+
+    private int intValue() {
+        int value = scanner.intValue();
+        //Integer.parseInt fails on these in the ANTLR path, let that path report it
+        if (value < 0)
+            throw GiveUp.INSTANCE;
+        return value;
+    }
+
+    private static int precedence(int tokenType) {
+        switch (tokenType) {
+            case ICSSLexer.PLUS:
+            case ICSSLexer.MIN:
+                return ADDITIVE;
+            case ICSSLexer.MUL:
+                return MULTIPLICATIVE;
+            default:
+                return NO_OPERATOR;
+        }
+    }
+
+    private static Operation operation(int tokenType) {
+        switch (tokenType) {
+            case ICSSLexer.PLUS: return new AddOperation();
+            case ICSSLexer.MIN: return new SubtractOperation();
+            default: return new MultiplyOperation();
+        }
+    }
+
+    private void expect(int tokenType) {
+        if (scanner.type != tokenType)
+            throw GiveUp.INSTANCE;
+        scanner.next();
+    }
+
+    /*
+     Thrown to unwind to tryParse. There is nothing to report, so one instance without a stack trace will do.
+     */
+    private static final class GiveUp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        static final GiveUp INSTANCE = new GiveUp();
+
+        private GiveUp() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.util.List;
+
+/**
+ * Error listener that adds syntax errors to a list, in the same format as the Pipeline.
+ */
+public class SyntaxErrorCollector extends BaseErrorListener {
+
+    private final List<String> errors;
+
+    public SyntaxErrorCollector(List<String> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                            int charPositionInLine, String msg, RecognitionException e) {
+        errors.add("Syntax error: " + msg);
+    }
+}
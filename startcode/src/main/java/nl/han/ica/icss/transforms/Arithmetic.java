@@ -0,0 +1,61 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+/**
+ * The arithmetic on literals of the Evaluator, shared with the ConstantFolder so folding ahead of time
+ * gives the same literals as evaluating. An operation the Checker would reject gives its left operand.
+ */
+final class Arithmetic {
+
+    private Arithmetic() { }
+
+    static Literal add(Literal left, Literal right) {
+        ExpressionType type = left.type;
+        if (!isDimension(type) || type != right.type)
+            return left;
+        return literalOf(type, intValue(left) + intValue(right));
+    }
+
+    static Literal subtract(Literal left, Literal right) {
+        ExpressionType type = left.type;
+        if (!isDimension(type) || type != right.type)
+            return left;
+        return literalOf(type, intValue(left) - intValue(right));
+    }
+
+    // een van de twee moet een scalar zijn, het resultaat krijgt het type van de andere
+    static Literal multiply(Literal left, Literal right) {
+        ExpressionType leftType = left.type;
+        ExpressionType rightType = right.type;
+        if (leftType == ExpressionType.SCALAR && isDimension(rightType))
+            return literalOf(rightType, intValue(left) * intValue(right));
+        if (rightType == ExpressionType.SCALAR && isDimension(leftType))
+            return literalOf(leftType, intValue(left) * intValue(right));
+        return left;
+    }
+
+    private static boolean isDimension(ExpressionType type) {
+        return type == ExpressionType.PIXEL || type == ExpressionType.PERCENTAGE || type == ExpressionType.SCALAR;
+    }
+
+    private static int intValue(Literal literal) {
+        switch (literal.type) {
+            case PIXEL: return ((PixelLiteral) literal).value;
+            case PERCENTAGE: return ((PercentageLiteral) literal).value;
+            case SCALAR: return ((ScalarLiteral) literal).value;
+            default: throw new IllegalArgumentException("Geen getal: " + literal.getNodeLabel());
+        }
+    }
+
+    private static Literal literalOf(ExpressionType type, int value) {
+        switch (type) {
+            case PIXEL: return Literals.pixel(value);
+            case PERCENTAGE: return Literals.percentage(value);
+            case SCALAR: return Literals.scalar(value);
+            default: throw new IllegalArgumentException("Geen getal: " + type);
+        }
+    }
+}
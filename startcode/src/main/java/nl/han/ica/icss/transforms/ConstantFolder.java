@@ -0,0 +1,130 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.checker.Resolver;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+/**
+ * Replaces every operation whose operands are literals by its result, and every variable reference
+ * whose value is a literal by that literal, in the declarations, variable assignments and if conditions
+ * of a checked AST. The Evaluator then only has to copy literals, so fold a stylesheet once before
+ * evaluating it many times.
+ *
+ * A reference reads the last assignment to its slot in its scope (see Resolver), so the folder keeps
+ * the folded value of every slot of the open scopes, like the Evaluator, and walks both branches of
+ * an if clause. The results are those of the Evaluator, which uses the same Arithmetic.
+ *
+ * Changes the tree in place and resolves it again. Assignments stay, but once all their references
+ * are folded the LivenessAnalysis marks them unused and the Evaluator skips them.
+ */
+public class ConstantFolder implements Transform {
+
+    //Folded value of every variable of the open scopes, null when it is not a literal
+    private Literal[][] frames;
+    private int depth;
+
+    private final ASTVisitor<Void, Void> statementFolder = new ASTVisitor<>() {
+        @Override
+        public Void visitStylerule(Stylerule rule, Void context) {
+            foldScope(rule.body);
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration declaration, Void context) {
+            declaration.setExpression(fold(declaration.expression));
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment assignment, Void context) {
+            assignment.setExpression(fold(assignment.expression));
+            VariableReference name = assignment.name;
+            if (name.isResolved())
+                frames[name.depth][name.slot] = assignment.expression instanceof Literal value ? value : null;
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause ifClause, Void context) {
+            ifClause.setConditionalExpression(fold(ifClause.conditionalExpression));
+            foldScope(ifClause.body);
+            if (ifClause.elseClause != null)
+                foldScope(ifClause.elseClause.body);
+            return null;
+        }
+    };
+
+    private final ASTVisitor<Expression, Void> expressionFolder = new ASTVisitor<>() {
+        @Override
+        public Expression visitExpression(Expression expression, Void context) {
+            return expression;
+        }
+
+        @Override
+        public Expression visitVariableReference(VariableReference reference, Void context) {
+            if (reference.isResolved() && frames[reference.depth][reference.slot] != null)
+                return frames[reference.depth][reference.slot];
+            return reference;
+        }
+
+        @Override
+        public Expression visitAddOperation(AddOperation operation, Void context) {
+            return foldOperation(operation, Arithmetic::add);
+        }
+
+        @Override
+        public Expression visitSubtractOperation(SubtractOperation operation, Void context) {
+            return foldOperation(operation, Arithmetic::subtract);
+        }
+
+        @Override
+        public Expression visitMultiplyOperation(MultiplyOperation operation, Void context) {
+            return foldOperation(operation, Arithmetic::multiply);
+        }
+    };
+
+    @Override
+    public void apply(AST ast) {
+        Resolver.ensureResolved(ast);
+        int[] frameSizes = ast.root.frameSizes;
+        frames = new Literal[frameSizes.length][];
+        for (int d = 0; d < frameSizes.length; d++) {
+            frames[d] = new Literal[frameSizes[d]];
+        }
+        depth = -1;
+        foldScope(ast.root.body);
+
+        //References were replaced: the liveness of the assignments has to be determined again
+        Resolver.resolve(ast);
+    }
+
+    private void foldScope(List<ASTNode> body) {
+        depth++;
+        Arrays.fill(frames[depth], null);
+        for (ASTNode statement : body)
+            statement.accept(statementFolder, null);
+        depth--;
+    }
+
+    private Expression fold(Expression expression) {
+        if (expression == null)
+            return null;
+        return expression.accept(expressionFolder, null);
+    }
+
+    //Folds the operands first; an operation with an operand that stays an expression is kept
+    private Expression foldOperation(Operation operation, BinaryOperator<Literal> arithmetic) {
+        operation.setLhs(fold(operation.lhs));
+        operation.setRhs(fold(operation.rhs));
+        if (operation.lhs instanceof Literal left && operation.rhs instanceof Literal right)
+            return arithmetic.apply(left, right);
+        return operation;
+    }
+}
@@ -3,57 +3,167 @@ package nl.han.ica.icss.transforms;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.*;
+import nl.han.ica.icss.checker.Resolver;
 
 import java.util.*;
 
+/**
+ * Evaluates the variables, expressions and if clauses of a checked AST.
+ *
+ * evaluate leaves its input untouched and returns a new tree that shares every node it did not
+ * need to change (selectors, property names, declarations that already hold a literal, the literals).
+ * The shared nodes keep belonging to the input (see ASTNode.adopt), so the input and its hashes stay
+ * as they were. A change to a shared node shows in both trees but only clears the hashes of the input:
+ * call invalidateHashes on the result after that.
+ * One checked (or resolved, see Resolver) tree can so be evaluated any number of times, also by
+ * several threads at once. evaluate never resolves: that would change the tree the other threads read.
+ * An Evaluator itself is not thread-safe: use one per thread.
+ */
 public class Evaluator implements Transform {
-    private final LinkedList<HashMap<String, Literal>> varirableAssigmentsSafe;
-    public Evaluator() {
-        varirableAssigmentsSafe = new LinkedList<>();
-    }
+    // waardes van de variabelen per scope diepte, op de slots van de Resolver
+    private Literal[][] frames;
+    private int depth;
+
+    // statements; de context is de lijst waar de nodes van de nieuwe boom in komen
+    private final ASTVisitor<Void, List<ASTNode>> statementEvaluator = new ASTVisitor<>() {
+        @Override
+        public Void visitStylerule(Stylerule rule, List<ASTNode> result) {
+            result.add(evaluateStylerule(rule));
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment varAssign, List<ASTNode> result) {
+            // niemand leest deze waarde, dan hoeft hij ook niet uitgerekend te worden
+            if (!varAssign.unused)
+                addVarAssignnmentVariable(varAssign);
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration declaration, List<ASTNode> result) {
+            result.add(evaluateDeclaration(declaration));
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause ifClause, List<ASTNode> result) {
+            result.addAll(apllyIfclause(ifClause));
+            return null;
+        }
+    };
+
+    private final ASTVisitor<Literal, Void> expressionEvaluator = new ASTVisitor<>() {
+        @Override
+        public Literal visitNode(ASTNode node, Void context) {
+            return Literals.scalar(0);
+        }
+
+        @Override
+        public Literal visitLiteral(Literal literal, Void context) {
+            return literal;
+        }
+
+        @Override
+        public Literal visitVariableReference(VariableReference ref, Void context) {
+            if (ref.isResolved())
+                return frames[ref.depth][ref.slot];
+            return Literals.scalar(0);
+        }
+
+        @Override
+        public Literal visitAddOperation(AddOperation op, Void context) {
+            return Arithmetic.add(evalExpression(op.lhs), evalExpression(op.rhs));
+        }
+
+        @Override
+        public Literal visitSubtractOperation(SubtractOperation op, Void context) {
+            return Arithmetic.subtract(evalExpression(op.lhs), evalExpression(op.rhs));
+        }
+
+        @Override
+        public Literal visitMultiplyOperation(MultiplyOperation op, Void context) {
+            return Arithmetic.multiply(evalExpression(op.lhs), evalExpression(op.rhs));
+        }
+    };
+
+    /**
+     * Replaces the root of the AST by the root of the evaluated tree, resolving it first when needed.
+     * The old tree is not changed otherwise.
+     */
     @Override
     public void apply(AST ast) {
-            varirableAssigmentsSafe.push(new HashMap<>());
-            applyStylesheet((Stylesheet) ast.root);
+        Resolver.ensureResolved(ast);
+        ast.setRoot(evaluate(ast).root);
     }
 
-    private void applyStylesheet(Stylesheet stylesheet) {
-        var toRemove = new LinkedList<ASTNode>();
-        for (ASTNode node : stylesheet.getChildren()) {
-            if (node instanceof VariableAssignment) {
-                addVarAssignnmentVariable((VariableAssignment) node);
-                toRemove.add(node);
-            } else if (node instanceof Stylerule) {
-                applyStylerule((Stylerule) node);
-            }
+    /**
+     * @return the evaluated tree, sharing the nodes it did not change with the input
+     * @throws IllegalStateException when the AST has not been checked or resolved
+     */
+    public AST evaluate(AST ast) {
+        int[] frameSizes = ast.root.frameSizes;
+        if (frameSizes == null)
+            throw new IllegalStateException("The AST is not resolved: check it or call Resolver.resolve first");
+        frames = new Literal[frameSizes.length][];
+        for (int d = 0; d < frameSizes.length; d++) {
+            frames[d] = new Literal[frameSizes[d]];
+        }
+        depth = -1;
+        enterScope();
+        AST result = new AST(evaluateStylesheet(ast.root));
+        exitScope();
+        return result;
+    }
+
+    // een nieuwe scope op deze diepte ziet niks van de vorige
+    private void enterScope() {
+        depth++;
+        Arrays.fill(frames[depth], null);
+    }
+
+    private void exitScope() {
+        depth--;
+    }
+
+    private Stylesheet evaluateStylesheet(Stylesheet stylesheet) {
+        // variable assignments komen niet in de nieuwe boom. dan zie je hem niet meer :)
+        ArrayList<ASTNode> body = new ArrayList<>();
+        for (ASTNode node : stylesheet.body) {
+            node.accept(statementEvaluator, body);
         }
-        // alle variable assignments verwijderen in de transformer. dan zie je hem niet meer :)
-        stylesheet.getChildren().removeAll(toRemove);
+        return new Stylesheet(body);
     }
 
 
-    private void applyStylerule(Stylerule rule) {
-        varirableAssigmentsSafe.push(new HashMap<>());
+    private Stylerule evaluateStylerule(Stylerule rule) {
+        enterScope();
         var processedBody = new LinkedList<ASTNode>();
 
         for (ASTNode node : rule.body) {
-            if (node instanceof VariableAssignment) {
-                addVarAssignnmentVariable((VariableAssignment) node);
-            }
-            else if (node instanceof IfClause) {
-                processedBody.addAll(apllyIfclause((IfClause) node));
-            }
-            else if (node instanceof Declaration) {
-                Declaration declaration = (Declaration) node;
-                declaration.expression = evalExpression(declaration.expression);
-                processedBody.add(declaration);
-            }
+            node.accept(statementEvaluator, processedBody);
         }
 
         LinkedList<ASTNode> unique = getAstNodes(processedBody);
 
-        rule.body = new ArrayList<>(unique);
-        varirableAssigmentsSafe.pop();
+        Stylerule result = new Stylerule();
+        for (Selector selector : rule.selectors)
+            result.addChild(selector);
+        for (ASTNode node : unique)
+            result.addChild(node);
+        exitScope();
+        return result;
+    }
+
+    // een declaratie die al een literal heeft hoeft niet gekopieerd te worden
+    private Declaration evaluateDeclaration(Declaration declaration) {
+        Literal value = evalExpression(declaration.expression);
+        if (value == declaration.expression)
+            return declaration;
+        Declaration result = new Declaration();
+        result.addChild(declaration.property);
+        result.setExpression(value);
+        return result;
     }
     // dit is vor meerdere declaraties
     // bijvoorbeeld in level 3
@@ -109,97 +219,24 @@ eerst kreeg ik in de generation steeds 2 background-color maar door processedBod
 
         ArrayList<ASTNode> result = new ArrayList<>();
 
+        // de if en de else hebben elk een eigen scope
+        enterScope();
         for (ASTNode element : activeBody) {
-            if (element instanceof VariableAssignment) {
-                addVarAssignnmentVariable((VariableAssignment) element);
-            }
-            else if (element instanceof Declaration) {
-                Declaration declaration = (Declaration) element;
-                declaration.expression = evalExpression(declaration.expression);
-                result.add(declaration);
-            }
-            else if (element instanceof IfClause) {
-                result.addAll(apllyIfclause((IfClause) element));
-            }
+            element.accept(statementEvaluator, result);
         }
+        exitScope();
 
         return result;
     }
 
     private void addVarAssignnmentVariable(VariableAssignment varAssign) {
         Literal value = evalExpression(varAssign.expression);
-        varirableAssigmentsSafe.peek().put(varAssign.name.name, value);
+        frames[varAssign.name.depth][varAssign.name.slot] = value;
     }
 
     private Literal evalExpression(Expression expr) {
-        if (expr instanceof VariableReference) {
-            VariableReference ref = (VariableReference) expr;
-            for (HashMap<String, Literal> scope : varirableAssigmentsSafe) {
-                if (scope.containsKey(ref.name)) {
-                    return scope.get(ref.name);
-                }
-            }
-            return new ScalarLiteral(0);
-        }
-
-        if (expr instanceof Literal)
-            return (Literal) expr;
-
-        if (expr instanceof AddOperation) {
-            AddOperation adOperation = (AddOperation) expr;
-            return addLiterals(evalExpression(adOperation.lhs), evalExpression(adOperation.rhs));
-        }
-
-        if (expr instanceof SubtractOperation) {
-            SubtractOperation minusOpration = (SubtractOperation) expr;
-            return minusLiterals(evalExpression(minusOpration.lhs), evalExpression(minusOpration.rhs));
-        }
-
-        if (expr instanceof MultiplyOperation) {
-            MultiplyOperation multiplyOperation = (MultiplyOperation) expr;
-            return multiplyLiterals(evalExpression(multiplyOperation.lhs), evalExpression(multiplyOperation.rhs));
-        }
-
-        return new ScalarLiteral(0);
-    }
-
-    private Literal addLiterals(Literal leftLiteral, Literal rightLiteral) {
-        if (leftLiteral instanceof PixelLiteral && rightLiteral instanceof PixelLiteral) {
-            return new PixelLiteral(((PixelLiteral) leftLiteral).value + ((PixelLiteral) rightLiteral).value);
-        }
-        if (leftLiteral instanceof ScalarLiteral && rightLiteral instanceof ScalarLiteral) {
-            return new ScalarLiteral(((ScalarLiteral) leftLiteral).value + ((ScalarLiteral) rightLiteral).value);
-        }
-        if (leftLiteral instanceof PercentageLiteral && rightLiteral instanceof PercentageLiteral){
-            return new PercentageLiteral(((PercentageLiteral) leftLiteral).value + ((PercentageLiteral) rightLiteral).value);
-        }
-
-
-        return leftLiteral;
-    }
-
-    private Literal minusLiterals(Literal left, Literal right) {
-        if (left instanceof PixelLiteral && right instanceof PixelLiteral)
-            return new PixelLiteral(((PixelLiteral) left).value - ((PixelLiteral) right).value);
-        if (left instanceof PercentageLiteral && right instanceof PercentageLiteral)
-            return new PercentageLiteral(((PercentageLiteral) left).value - ((PercentageLiteral) right).value);
-        if (left instanceof ScalarLiteral && right instanceof ScalarLiteral)
-            return new ScalarLiteral(((ScalarLiteral) left).value - ((ScalarLiteral) right).value);
-        return left;
-    }
-
-    private Literal multiplyLiterals(Literal left, Literal right) {
-        // MOET NOG VERANDEREN EN MISS WAT DYNAMISCHER MKAKEN. NIET VERGETEN!!!!l
-        if (left instanceof PixelLiteral && right instanceof ScalarLiteral)
-            return new PixelLiteral(((PixelLiteral) left).value * ((ScalarLiteral) right).value);
-        if (left instanceof PercentageLiteral && right instanceof ScalarLiteral)
-            return new PercentageLiteral(((PercentageLiteral) left).value * ((ScalarLiteral) right).value);
-        if (left instanceof ScalarLiteral && right instanceof ScalarLiteral)
-            return new ScalarLiteral(((ScalarLiteral) left).value * ((ScalarLiteral) right).value);
-        if (left instanceof ScalarLiteral && right instanceof PixelLiteral)
-            return new PixelLiteral(((ScalarLiteral) left).value * ((PixelLiteral) right).value);
-        if (left instanceof ScalarLiteral && right instanceof PercentageLiteral)
-            return new PercentageLiteral(((ScalarLiteral) left).value * ((PercentageLiteral) right).value);
-        return left;
+        if (expr == null)
+            return Literals.scalar(0);
+        return expr.accept(expressionEvaluator, null);
     }
 }
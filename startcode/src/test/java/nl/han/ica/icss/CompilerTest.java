@@ -0,0 +1,78 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.parser.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompilerTest {
+
+	String compileWithPipeline(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		pipeline.check();
+		pipeline.transform();
+		return pipeline.generate();
+	}
+
+	@Test
+	void testCompileMatchesPipeline() throws IOException {
+		String source = Fixtures.readTestFile("level3.icss");
+		CompilationResult result = Compiler.compile(source);
+
+		assertTrue(result.isSucceeded());
+		assertEquals(compileWithPipeline(source), result.getCss());
+		assertTrue(result.hasRun(CompilationResult.Stage.GENERATE));
+	}
+
+	@Test
+	void testSyntaxErrorStopsAfterParse() {
+		CompilationResult result = Compiler.compile("p { width: ; }");
+
+		assertFalse(result.isSucceeded());
+		assertNull(result.getCss());
+		assertFalse(result.hasRun(CompilationResult.Stage.CHECK));
+	}
+
+	@Test
+	void testGenerateEvaluatesWithoutTransform() {
+		String source = "A := 1px; p { width: A; if [TRUE] { height: 2px; } }";
+		CompilationResult result = Compiler.compile(source, Compiler.Options.DEFAULT.withTransform(false));
+
+		assertTrue(result.isSucceeded());
+		assertEquals(compileWithPipeline(source), result.getCss());
+		assertTrue(result.getCss().contains("height"));
+	}
+
+	@Test
+	void testConcurrentCompiles() throws Exception {
+		List<String> sources = new ArrayList<>();
+		List<String> expected = new ArrayList<>();
+		for (String level : List.of("level0.icss", "level1.icss", "level2.icss", "level3.icss")) {
+			String source = Fixtures.readTestFile(level);
+			sources.add(source);
+			expected.add(compileWithPipeline(source));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				String source = sources.get(i % sources.size());
+				futures.add(executor.submit(() -> Compiler.compile(source).getCss()));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				assertEquals(expected.get(i % expected.size()), futures.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
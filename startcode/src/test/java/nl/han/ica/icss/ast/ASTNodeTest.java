@@ -0,0 +1,115 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import nl.han.ica.icss.parser.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTNodeTest {
+
+	void assertTraversalsAgree(ASTNode node) {
+		List<ASTNode> indexed = new ArrayList<>();
+		for (int i = 0; i < node.getChildCount(); i++)
+			indexed.add(node.getChild(i));
+		List<ASTNode> forEach = new ArrayList<>();
+		node.forEachChild(forEach::add);
+
+		assertEquals(node.getChildren().size(), indexed.size());
+		for (int i = 0; i < indexed.size(); i++) {
+			assertSame(node.getChildren().get(i), indexed.get(i));
+			assertSame(indexed.get(i), forEach.get(i));
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> node.getChild(node.getChildCount()));
+
+		for (ASTNode child : indexed)
+			assertTraversalsAgree(child);
+	}
+
+	@Test
+	void testTraversalsAgree() {
+		for (AST ast : List.of(Fixtures.uncheckedLevel0(), Fixtures.uncheckedLevel1(),
+				Fixtures.uncheckedLevel2(), Fixtures.uncheckedLevel3())) {
+			assertTraversalsAgree(ast.root);
+		}
+	}
+
+	@Test
+	void testOptionalChildrenAreSkipped() {
+		Declaration declaration = new Declaration();
+		assertEquals(0, declaration.getChildCount());
+
+		declaration.addChild(new VariableReference("A"));
+		assertEquals(1, declaration.getChildCount());
+		assertTrue(declaration.getChild(0) instanceof VariableReference);
+		assertEquals("[Declaration|[VariableReference (A)|]]", declaration.toString());
+	}
+
+	@Test
+	void testStructuralHashAndEquality() {
+		AST first = Fixtures.uncheckedLevel3();
+		AST second = Fixtures.uncheckedLevel3();
+		assertEquals(first.root.structuralHash(), second.root.structuralHash());
+		assertEquals(first, second);
+
+		//Names and values are part of the structure
+		assertNotEquals(new Declaration("width").addChild(new PixelLiteral(1)),
+				new Declaration("height").addChild(new PixelLiteral(1)));
+		assertNotEquals(new PixelLiteral(1), new ScalarLiteral(1));
+		assertNotEquals(new AddOperation().addChild(new ScalarLiteral(1)).addChild(new ScalarLiteral(2)),
+				new SubtractOperation().addChild(new ScalarLiteral(1)).addChild(new ScalarLiteral(2)));
+
+		//Equal subtrees deduplicate as map keys
+		Set<ASTNode> rules = new HashSet<>(first.root.body);
+		rules.addAll(second.root.body);
+		assertEquals(new HashSet<>(first.root.body).size(), rules.size());
+	}
+
+	@Test
+	void testHashFollowsChanges() {
+		Stylerule rule = new Stylerule();
+		rule.addChild(new TagSelector("p"));
+		int before = rule.structuralHash();
+		rule.addChild(new Declaration("width").addChild(new PixelLiteral(1)));
+		assertNotEquals(before, rule.structuralHash());
+
+		//A setter deep in the tree clears the hashes of the ancestors
+		AST ast = new AST(new Stylesheet());
+		ast.root.addChild(rule);
+		Declaration declaration = (Declaration) rule.body.get(0);
+		int withOnePixel = ast.root.structuralHash();
+		declaration.setExpression(new PixelLiteral(2));
+		assertNotEquals(withOnePixel, ast.root.structuralHash());
+		declaration.setExpression(new PixelLiteral(1));
+		assertEquals(withOnePixel, ast.root.structuralHash());
+
+		//A field written directly needs invalidateHashes
+		declaration.expression = new PixelLiteral(2);
+		ast.invalidateHashes();
+		assertNotEquals(withOnePixel, ast.root.structuralHash());
+	}
+
+	@Test
+	void testHashOfZeroIsKept() {
+		int[] computed = new int[1];
+		ASTNode node = new ASTNode() {
+			@Override
+			protected int payloadHash() {
+				computed[0]++;
+				return -getClass().getName().hashCode() * 31;
+			}
+		};
+		assertEquals(0, node.structuralHash());
+		assertEquals(0, node.structuralHash());
+		assertEquals(1, computed[0]);
+	}
+}
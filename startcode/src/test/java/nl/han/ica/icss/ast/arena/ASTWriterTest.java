@@ -0,0 +1,150 @@
+package nl.han.ica.icss.ast.arena;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.Diagnostics;
+import nl.han.ica.icss.parser.Fixtures;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTWriterTest {
+
+	byte[] write(AST ast) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ASTWriter.write(ast, out);
+		return out.toByteArray();
+	}
+
+	@Test
+	void testFixturesRoundTrip() throws IOException {
+		for (AST ast : new AST[]{new AST(), Fixtures.uncheckedLevel0(), Fixtures.uncheckedLevel1(),
+				Fixtures.uncheckedLevel2(), Fixtures.uncheckedLevel3()}) {
+			assertEquals(ast, ASTReader.read(ByteBuffer.wrap(write(ast))));
+		}
+	}
+
+	@Test
+	void testDiagnosticsAndValuesRoundTrip() throws IOException {
+		AST ast = ParserDriver.parse("A := 1px + #ff0000;\np { width: B; color: 10px; }\nC := 2 * 3px;\ndiv { width: C; height: A; }", null, ParseOptions.DEFAULT);
+		Diagnostics diagnostics = new Checker().check(ast);
+		Stylerule rule = (Stylerule) ast.root.body.get(1);
+		rule.addChild(new Declaration("height"));
+		((Declaration) rule.body.get(2)).setExpression(new PixelLiteral(-5));
+		rule.addChild(new Declaration("background-color"));
+		((Declaration) rule.body.get(3)).setExpression(new ColorLiteral(0x80808080));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ASTWriter.write(ast, diagnostics, out);
+		Diagnostics readDiagnostics = new Diagnostics();
+		AST read = ASTReader.read(ByteBuffer.wrap(out.toByteArray()), readDiagnostics);
+
+		assertEquals(ast, read);
+		assertEquals(ExpressionType.UNDEFINED, ((VariableAssignment) read.root.body.get(0)).expression.type);
+		assertEquals(ExpressionType.PIXEL, ((VariableAssignment) read.root.body.get(2)).expression.type);
+		assertEquals(3, diagnostics.size());
+		assertEquals(diagnostics.size(), readDiagnostics.size());
+		for (int i = 0; i < diagnostics.size(); i++) {
+			assertEquals(diagnostics.getAll().get(i).toString(), readDiagnostics.getAll().get(i).toString());
+			assertEquals(diagnostics.getAll().get(i).getNode(), readDiagnostics.getAll().get(i).getNode());
+			assertTrue(readDiagnostics.hasError(readDiagnostics.getAll().get(i).getNode()));
+		}
+	}
+
+	@Test
+	void testMappedFile() throws IOException {
+		Path file = Files.createTempFile("ast", ".icssb");
+		try {
+			ASTWriter.write(Fixtures.uncheckedLevel3(), file);
+			assertEquals(Fixtures.uncheckedLevel3(), ASTReader.read(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testRejectsOtherVersionsAndDamagedFiles() throws IOException {
+		byte[] bytes = write(Fixtures.uncheckedLevel2());
+
+		byte[] otherVersion = bytes.clone();
+		otherVersion[5]++;
+		assertThrows(IOException.class, () -> ASTReader.read(ByteBuffer.wrap(otherVersion)));
+
+		byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+		assertThrows(IOException.class, () -> ASTReader.read(ByteBuffer.wrap(truncated)));
+
+		assertThrows(IOException.class, () -> ASTReader.read(ByteBuffer.wrap(new byte[]{'p', ' ', '{', '}'})));
+	}
+
+	ByteBuffer withHeader(int... rest) {
+		ByteBuffer buffer = ByteBuffer.allocate(6 + rest.length);
+		buffer.putInt(ASTWriter.MAGIC).putShort(ASTWriter.VERSION);
+		for (int b : rest)
+			buffer.put((byte) b);
+		return buffer.flip();
+	}
+
+	@Test
+	void testCorruptCountsAreRejected() {
+		//A string count that decodes to a negative number, and one far larger than the file
+		assertThrows(IOException.class, () -> ASTReader.read(withHeader(0xff, 0xff, 0xff, 0xff, 0x0f)));
+		assertThrows(IOException.class, () -> ASTReader.read(withHeader(0xff, 0xff, 0xff, 0xff, 0x07)));
+		//No strings, a node count far larger than the file
+		assertThrows(IOException.class, () -> ASTReader.read(withHeader(0, 0xff, 0xff, 0x7f)));
+		//A stylesheet that claims a child that is not there
+		assertThrows(IOException.class, () -> ASTReader.read(withHeader(0, 1, NodeKind.STYLESHEET.ordinal(), 1, 0)));
+	}
+
+	@Test
+	void testDamagedBytesGiveIOException() throws IOException {
+		AST ast = ParserDriver.parse("A := 1px + 2px;\np { width: A; color: #ff0000; }", null, ParseOptions.DEFAULT);
+		byte[] bytes = write(ast);
+		Random random = new Random(16);
+		for (int i = 0; i < 2000; i++) {
+			byte[] damaged = bytes.clone();
+			damaged[6 + random.nextInt(damaged.length - 6)] = (byte) random.nextInt(256);
+			try {
+				ASTReader.read(ByteBuffer.wrap(damaged));
+			} catch (IOException e) {
+				//expected for most damage
+			}
+		}
+	}
+
+	@Test
+	void testDeeplyNestedFileIsRead() throws IOException {
+		int depth = 100_000;
+		ByteBuffer buffer = ByteBuffer.allocate(16 + 3 * depth);
+		buffer.putInt(ASTWriter.MAGIC).putShort(ASTWriter.VERSION);
+		buffer.put((byte) 0);
+		//varint node count: stylesheet, depth operations, one literal
+		int count = depth + 2;
+		while (count >= 0x80) {
+			buffer.put((byte) (count & 0x7f | 0x80));
+			count >>>= 7;
+		}
+		buffer.put((byte) count);
+		buffer.put((byte) NodeKind.STYLESHEET.ordinal()).put((byte) 1);
+		for (int i = 0; i < depth; i++)
+			buffer.put((byte) NodeKind.ADD_OPERATION.ordinal()).put((byte) 1).put((byte) ExpressionType.PIXEL.ordinal());
+		buffer.put((byte) NodeKind.PIXEL_LITERAL.ordinal()).put((byte) 0).put((byte) 2);
+		buffer.put((byte) 0);
+
+		AST ast = ASTReader.read(buffer.flip());
+		assertEquals(1, ast.root.body.size());
+		assertEquals(ExpressionType.PIXEL, ((Expression) ast.root.body.get(0)).type);
+	}
+}
@@ -0,0 +1,95 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.parser.Fixtures;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckerTest {
+
+	Diagnostics check(String input) {
+		return new Checker().check(ParserDriver.parse(input, null, ParseOptions.DEFAULT));
+	}
+
+	@Test
+	void testFixturesHaveNoDiagnostics() {
+		for (AST ast : new AST[]{Fixtures.uncheckedLevel0(), Fixtures.uncheckedLevel3()}) {
+			assertTrue(new Checker().check(ast).isEmpty());
+		}
+		//Level 1 and 2 assign two variables that only level 3 uses
+		for (AST ast : new AST[]{Fixtures.uncheckedLevel1(), Fixtures.uncheckedLevel2()}) {
+			assertEquals(List.of("WARNING: Variabele 'AdjustColor' wordt nergens gebruikt.",
+					"WARNING: Variabele 'UseLinkColor' wordt nergens gebruikt."),
+					new Checker().check(ast).getAll().stream().map(Diagnostic::toString).toList());
+		}
+	}
+
+	@Test
+	void testDiagnosticsPointAtTheirNodes() {
+		AST ast = ParserDriver.parse("p { width: A; if[1px] { color: #ff0000; } }", null, ParseOptions.DEFAULT);
+		Diagnostics diagnostics = new Checker().check(ast);
+		Stylerule rule = (Stylerule) ast.root.body.get(0);
+		Declaration declaration = (Declaration) rule.body.get(0);
+		IfClause ifClause = (IfClause) rule.body.get(1);
+
+		assertEquals(2, diagnostics.size());
+		assertTrue(diagnostics.hasErrors());
+		assertTrue(diagnostics.hasError(declaration.expression));
+		assertTrue(diagnostics.hasError(ifClause));
+		assertFalse(diagnostics.hasError(declaration));
+		assertEquals("ERROR: If clause conditie moet boolean zijn.", diagnostics.forNode(ifClause).get(0).toString());
+	}
+
+	@Test
+	void testCheckerCanBeReused() {
+		Checker checker = new Checker();
+		assertTrue(checker.check(ParserDriver.parse("A := 1px; p { width: A; }", null, ParseOptions.DEFAULT)).isEmpty());
+		assertEquals(1, checker.check(ParserDriver.parse("p { width: A; }", null, ParseOptions.DEFAULT)).size());
+	}
+
+	@Test
+	void testTypesAreRecordedOnExpressions() {
+		AST ast = ParserDriver.parse("A := 2 * 10px; p { width: A + 1px; color: A; }", null, ParseOptions.DEFAULT);
+		Diagnostics diagnostics = new Checker().check(ast);
+		VariableAssignment assignment = (VariableAssignment) ast.root.body.get(0);
+		Stylerule rule = (Stylerule) ast.root.body.get(1);
+		Operation sum = (Operation) ((Declaration) rule.body.get(0)).expression;
+
+		assertEquals(ExpressionType.PIXEL, assignment.expression.type);
+		assertEquals(ExpressionType.SCALAR, ((Operation) assignment.expression).lhs.type);
+		assertEquals(ExpressionType.PIXEL, sum.type);
+		assertEquals(ExpressionType.PIXEL, sum.lhs.type);
+
+		//The type of a variable is checked against the property too
+		assertEquals(1, diagnostics.size());
+		assertEquals("ERROR: Property 'color' verwacht color, maar kreeg pixel.",
+				diagnostics.forNode(rule.body.get(1)).get(0).toString());
+	}
+
+	@Test
+	void testParallelCheckMatchesCheck() {
+		StringBuilder input = new StringBuilder("A := 1px;\n");
+		for (int i = 0; i < 200; i++) {
+			input.append("V").append(i).append(" := ").append(i % 3 == 0 ? "#ff0000" : i + "px").append(";\n");
+			input.append("p { width: V").append(i).append(" + A; color: V").append(i)
+					.append("; if[V").append(i).append("] { height: U; } }\n");
+		}
+		String source = input.toString();
+
+		Diagnostics sequential = check(source);
+		Diagnostics parallel = new Checker().checkParallel(ParserDriver.parse(source, null, ParseOptions.DEFAULT));
+
+		assertTrue(sequential.size() > 400);
+		assertEquals(sequential.size(), parallel.size());
+		for (int i = 0; i < sequential.size(); i++) {
+			assertEquals(sequential.getAll().get(i).toString(), parallel.getAll().get(i).toString());
+			assertEquals(sequential.getAll().get(i).getNode(), parallel.getAll().get(i).getNode());
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.parser.IncrementalParser;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalCheckerTest {
+
+	static final String SOURCE = "A := 10px;\n\n"
+			+ "B := #ff0000;\n\n"
+			+ "p { width: A; }\n\n"
+			+ "a { color: B; }\n\n"
+			+ "div { height: 5px; }\n";
+
+	@Test
+	void testUnchangedStylesheetIsNotCheckedAgain() {
+		AST ast = ParserDriver.parse(SOURCE, null, ParseOptions.DEFAULT);
+		IncrementalChecker checker = new IncrementalChecker();
+
+		assertTrue(checker.check(ast).isEmpty());
+		assertEquals(5, checker.getLastRecheckedCount());
+		assertTrue(checker.check(ast).isEmpty());
+		assertEquals(0, checker.getLastRecheckedCount());
+		assertEquals(Set.of("A"), checker.getDependencies(ast.root.body.get(2)));
+		assertEquals(Set.of(), checker.getDependencies(ast.root.body.get(4)));
+	}
+
+	@Test
+	void testEditOfRuleOnlyChecksThatRule() {
+		IncrementalParser parser = new IncrementalParser(SOURCE);
+		IncrementalChecker checker = new IncrementalChecker();
+		checker.check(parser.getAST());
+
+		int offset = parser.getText().indexOf("5px");
+		AST ast = parser.applyEdit(offset, 3, "#00ff00");
+		Diagnostics diagnostics = checker.check(ast);
+
+		assertEquals(1, checker.getLastRecheckedCount());
+		assertEquals(1, diagnostics.size());
+		assertEquals(new Checker().check(ast).getAll().toString(), diagnostics.getAll().toString());
+	}
+
+	@Test
+	void testTypeChangeOfVariableChecksItsDependents() {
+		IncrementalParser parser = new IncrementalParser(SOURCE);
+		IncrementalChecker checker = new IncrementalChecker();
+		checker.check(parser.getAST());
+
+		//Same type: only the assignment itself
+		AST ast = parser.applyEdit(parser.getText().indexOf("10px"), 4, "20px");
+		assertTrue(checker.check(ast).isEmpty());
+		assertEquals(1, checker.getLastRecheckedCount());
+
+		//Other type: the assignment and the rule that reads A
+		ast = parser.applyEdit(parser.getText().indexOf("20px"), 4, "#0000ff");
+		Diagnostics diagnostics = checker.check(ast);
+		assertEquals(2, checker.getLastRecheckedCount());
+		assertTrue(diagnostics.hasError(((Stylerule) ast.root.body.get(2)).body.get(0)));
+		assertEquals(new Checker().check(ast).getAll().toString(), diagnostics.getAll().toString());
+	}
+
+	@Test
+	void testRemovedAssignmentChecksItsDependents() {
+		IncrementalParser parser = new IncrementalParser(SOURCE);
+		IncrementalChecker checker = new IncrementalChecker();
+		checker.check(parser.getAST());
+
+		AST ast = parser.applyEdit(parser.getText().indexOf("B :="), "B := #ff0000;\n".length(), "");
+		Diagnostics diagnostics = checker.check(ast);
+
+		assertEquals(1, checker.getLastRecheckedCount());
+		assertEquals(List.of("ERROR: Variabele 'B' is niet gedefinieerd."),
+				diagnostics.getAll().stream().map(Diagnostic::toString).toList());
+
+		//Defining it again fixes the rule
+		ast = parser.applyEdit(parser.getText().indexOf("\n\n") + 1, 0, "B := #00ff00;\n");
+		assertTrue(checker.check(ast).isEmpty());
+		assertEquals(2, checker.getLastRecheckedCount());
+	}
+
+	@Test
+	void testStatementChangedInPlaceIsCheckedWhenNamed() {
+		AST ast = ParserDriver.parse(SOURCE, null, ParseOptions.DEFAULT);
+		IncrementalChecker checker = new IncrementalChecker();
+		checker.check(ast);
+
+		Stylerule rule = (Stylerule) ast.root.body.get(4);
+		((Declaration) rule.body.get(0)).setExpression(new ColorLiteral("#123456"));
+		assertTrue(checker.check(ast).isEmpty());
+		Diagnostics diagnostics = checker.check(ast, List.of(rule));
+
+		assertEquals(1, checker.getLastRecheckedCount());
+		assertTrue(diagnostics.hasError(rule.body.get(0)));
+	}
+}
@@ -0,0 +1,69 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LivenessAnalysisTest {
+
+	AST parse(String input) {
+		return ParserDriver.parse(input, null, ParseOptions.DEFAULT);
+	}
+
+	List<String> unused(String input) {
+		AST ast = parse(input);
+		Resolver.resolve(ast);
+		return LivenessAnalysis.analyze(ast).stream().map(assignment -> assignment.name.name).toList();
+	}
+
+	@Test
+	void testUnreadAssignmentsAreUnused() {
+		assertEquals(List.of("B"), unused("A := 1px; B := 2px; p { width: A; }"));
+		assertEquals(List.of(), unused("A := TRUE; p { if[A] { width: 1px; } }"));
+		assertEquals(List.of("A", "C"), unused("A := 1px; p { C := 2px; width: 3px; }"));
+	}
+
+	@Test
+	void testOverwrittenAssignmentIsUnused() {
+		AST ast = parse("A := 1px; A := 2px; p { width: A; }");
+		Resolver.resolve(ast);
+
+		assertTrue(((VariableAssignment) ast.root.body.get(0)).unused);
+		assertFalse(((VariableAssignment) ast.root.body.get(1)).unused);
+	}
+
+	@Test
+	void testAssignmentsOnlyReadByUnusedAssignmentsAreUnused() {
+		assertEquals(List.of("A", "B"), unused("A := 1px; B := A * 2; p { width: 3px; }"));
+		assertEquals(List.of("A", "A"), unused("A := 1px; A := A + 1px; p { width: 3px; }"));
+		assertEquals(List.of(), unused("A := 1px; B := A * 2; p { width: B; }"));
+		assertEquals(List.of(), unused("A := 1px; p { B := A + 1px; if[TRUE] { width: B; } }"));
+	}
+
+	@Test
+	void testBothBranchesOfIfClauseCount() {
+		assertEquals(List.of(), unused("A := 1px; B := 2px; p { if[FALSE] { width: A; } else { width: B; } }"));
+	}
+
+	@Test
+	void testCheckerWarnsAndEvaluatorSkipsUnused() {
+		String input = "Unused := 1px + 2px; Used := 3px; p { width: Used; }";
+		AST ast = parse(input);
+		Diagnostics diagnostics = new Checker().check(ast);
+
+		assertFalse(diagnostics.hasErrors());
+		assertEquals("WARNING: Variabele 'Unused' wordt nergens gebruikt.", diagnostics.getWarnings().get(0).toString());
+		assertEquals(1, diagnostics.forNode(ast.root.body.get(0)).size());
+		AST used = parse("Used := 3px; p { width: Used; }");
+		Resolver.resolve(used);
+		assertEquals(new Generator().generate(new Evaluator().evaluate(used)),
+				new Generator().generate(new Evaluator().evaluate(ast)));
+	}
+}
@@ -0,0 +1,106 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.Compiler;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropertySchemaTest {
+
+	@AfterEach
+	void restoreDefault() throws IOException {
+		PropertySchema.reloadDefault();
+	}
+
+	@Test
+	void testDefaultSchemaKeepsTheOriginalProperties() {
+		PropertySchema schema = PropertySchema.get();
+		int sizes = PropertySchema.bit(ExpressionType.PIXEL) | PropertySchema.bit(ExpressionType.PERCENTAGE)
+				| PropertySchema.bit(ExpressionType.SCALAR);
+
+		assertTrue(schema.size() > 200);
+		assertEquals(sizes, schema.allowedTypes("width"));
+		assertEquals(sizes, schema.allowedTypes("height"));
+		assertEquals(PropertySchema.bit(ExpressionType.COLOR), schema.allowedTypes("color"));
+		assertEquals(PropertySchema.bit(ExpressionType.COLOR), schema.allowedTypes("background-color"));
+		assertEquals(PropertySchema.bit(ExpressionType.BOOL), schema.allowedTypes("display"));
+	}
+
+	@Test
+	void testLookupIgnoresCaseAndNeedsTheWholeName() throws IOException {
+		PropertySchema schema = PropertySchema.parse(new StringReader("# sizes\nmax-width: pixel percentage\n"));
+
+		assertEquals(1, schema.size());
+		assertTrue(schema.allows("MAX-Width", ExpressionType.PERCENTAGE));
+		assertFalse(schema.allows("max-width", ExpressionType.COLOR));
+		assertEquals(PropertySchema.UNKNOWN, schema.allowedTypes("max"));
+		assertEquals(PropertySchema.UNKNOWN, schema.allowedTypes("max-width-x"));
+		assertEquals(PropertySchema.UNKNOWN, schema.allowedTypes("max_width"));
+	}
+
+	@Test
+	void testInvalidSchemaIsRejectedWithItsLine() {
+		IllegalArgumentException unknownType = assertThrows(IllegalArgumentException.class,
+				() -> PropertySchema.parse(new StringReader("width: pixel\nheight: inch\n")));
+		assertTrue(unknownType.getMessage().startsWith("Line 2"));
+		assertThrows(IllegalArgumentException.class, () -> PropertySchema.parse(new StringReader("width pixel\n")));
+		assertThrows(IllegalArgumentException.class, () -> PropertySchema.parse(new StringReader("width:\n")));
+		assertThrows(IllegalArgumentException.class,
+				() -> PropertySchema.parse(new StringReader("width: pixel\nWIDTH: scalar\n")));
+	}
+
+	@Test
+	void testInstalledSchemaIsUsedByNewCheckers() throws IOException {
+		String input = "p { width: 10px; border-spacing: #ffffff; }";
+		Checker before = new Checker();
+		assertEquals(1, before.check(ParserDriver.parse(input, null, ParseOptions.DEFAULT)).getErrors().size());
+
+		PropertySchema.install(PropertySchema.parse(new StringReader("width: scalar\n")));
+		Diagnostics diagnostics = new Checker().check(ParserDriver.parse(input, null, ParseOptions.DEFAULT));
+		assertEquals("ERROR: Property 'width' verwacht scalar, maar kreeg pixel.", diagnostics.getErrors().get(0).toString());
+		assertEquals("WARNING: Onbekende property 'border-spacing'.", diagnostics.getWarnings().get(0).toString());
+
+		assertEquals(1, before.check(ParserDriver.parse(input, null, ParseOptions.DEFAULT)).getErrors().size());
+	}
+
+	@Test
+	void testFingerprintFollowsContent() throws IOException {
+		PropertySchema schema = PropertySchema.parse(new StringReader("width: pixel\n"));
+
+		assertArrayEquals(schema.getFingerprint(), PropertySchema.parse(new StringReader("# sizes\nWidth:  pixel\n")).getFingerprint());
+		assertFalse(Arrays.equals(schema.getFingerprint(), PropertySchema.parse(new StringReader("width: scalar\n")).getFingerprint()));
+	}
+
+	@Test
+	void testCompilerCacheIsNotUsedAfterSchemaChange() throws IOException {
+		Path directory = Files.createTempDirectory("cache");
+		Path source = directory.resolve("input.icss");
+		Files.writeString(source, "p { width: 10px; }");
+		Compiler.Options options = Compiler.Options.DEFAULT.withCacheDirectory(directory);
+		try {
+			assertTrue(Compiler.compile(source, options).getDiagnostics().isEmpty());
+			assertTrue(Compiler.compile(source, options).getDiagnostics().isEmpty());
+
+			PropertySchema.install(PropertySchema.parse(new StringReader("height: pixel\n")));
+			assertEquals("WARNING: Onbekende property 'width'.",
+					Compiler.compile(source, options).getDiagnostics().getAll().get(0).toString());
+		} finally {
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path file : files.toList())
+					Files.delete(file);
+			}
+			Files.delete(directory);
+		}
+	}
+}
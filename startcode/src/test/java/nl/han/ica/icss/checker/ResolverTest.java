@@ -0,0 +1,68 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolverTest {
+
+	AST resolve(String input) {
+		AST ast = ParserDriver.parse(input, null, ParseOptions.DEFAULT);
+		Resolver.resolve(ast);
+		return ast;
+	}
+
+	VariableReference reference(ASTNode statement) {
+		return (VariableReference) ((Declaration) statement).expression;
+	}
+
+	@Test
+	void testSlotsAndDepths() {
+		AST ast = resolve("A := 1px; B := 2px; A := 3px;\n"
+				+ "p { C := A; width: C; height: B; }");
+		Stylerule rule = (Stylerule) ast.root.body.get(3);
+
+		assertEquals(0, ((VariableAssignment) ast.root.body.get(0)).name.slot);
+		assertEquals(1, ((VariableAssignment) ast.root.body.get(1)).name.slot);
+		assertEquals(0, ((VariableAssignment) ast.root.body.get(2)).name.slot);
+
+		VariableAssignment c = (VariableAssignment) rule.body.get(0);
+		assertEquals(0, ((VariableReference) c.expression).depth);
+		assertEquals(1, c.name.depth);
+		assertEquals(1, reference(rule.body.get(1)).depth);
+		assertEquals(0, reference(rule.body.get(1)).slot);
+		assertEquals(0, reference(rule.body.get(2)).depth);
+		assertEquals(1, reference(rule.body.get(2)).slot);
+		assertArrayEquals(new int[]{2, 1}, ast.root.frameSizes);
+	}
+
+	@Test
+	void testReferencesOnlySeeEarlierAssignmentsOfOpenScopes() {
+		AST ast = resolve("p { width: A; if[TRUE] { A := 1px; } else { height: A; } color: A; }\n"
+				+ "A := 2px;\n"
+				+ "a { A := A; }");
+		Stylerule p = (Stylerule) ast.root.body.get(0);
+		IfClause ifClause = (IfClause) p.body.get(1);
+		VariableAssignment inner = (VariableAssignment) ((Stylerule) ast.root.body.get(2)).body.get(0);
+
+		assertFalse(reference(p.body.get(0)).isResolved());
+		assertFalse(reference(ifClause.elseClause.body.get(0)).isResolved());
+		assertFalse(reference(p.body.get(2)).isResolved());
+		assertEquals(0, ((VariableReference) inner.expression).depth);
+		assertEquals(1, inner.name.depth);
+		assertArrayEquals(new int[]{1, 1, 1}, ast.root.frameSizes);
+	}
+
+	@Test
+	void testChangesThroughAddChildNeedNewResolve() {
+		AST ast = resolve("A := 1px;");
+		assertNotNull(ast.root.frameSizes);
+		ast.root.addChild(new Stylerule());
+		assertNull(ast.root.frameSizes);
+		Resolver.ensureResolved(ast);
+		assertNotNull(ast.root.frameSizes);
+	}
+}
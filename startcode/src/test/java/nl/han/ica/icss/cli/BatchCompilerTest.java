@@ -0,0 +1,119 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.Compiler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCompilerTest {
+
+	static final String VALID = "Width := 10px;\np { width: Width + 2px; }\n";
+
+	Path directory;
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+	@BeforeEach
+	void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("batch");
+	}
+
+	@AfterEach
+	void deleteDirectory() throws IOException {
+		try (Stream<Path> walk = Files.walk(directory)) {
+			for (Path path : walk.sorted(Comparator.reverseOrder()).toList())
+				Files.delete(path);
+		}
+	}
+
+	int run(String... args) throws IOException, InterruptedException {
+		return BatchCompiler.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+				new PrintStream(err, true, StandardCharsets.UTF_8));
+	}
+
+	Path write(String name, String content) throws IOException {
+		Path file = directory.resolve(name);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content, StandardCharsets.UTF_8);
+		return file;
+	}
+
+	@Test
+	void testArgumentsAreParsed() throws IOException {
+		Path cache = directory.resolve("cache");
+		BatchCompiler.Arguments arguments = BatchCompiler.Arguments.parse(new String[]{
+				"-j", "3", "--parallel-check", "--parallel-parse", "--cache", cache.toString(), "a.icss", "styles"});
+
+		assertEquals(3, arguments.parallelism);
+		assertTrue(arguments.options.isParallelCheck());
+		assertTrue(arguments.options.getParseOptions().isParallel());
+		assertEquals(cache, arguments.options.getCacheDirectory());
+		assertTrue(Files.isDirectory(cache));
+		assertEquals(List.of("a.icss", "styles"), arguments.paths);
+	}
+
+	@Test
+	void testCompilesDirectoryTree() throws IOException, InterruptedException {
+		Path first = write("first.icss", VALID);
+		Path second = write("nested/second.icss", "a { color: #ff0000; }\n");
+		write("nested/notes.txt", "not an input");
+		Path cache = directory.resolve("cache");
+
+		assertEquals(0, run("-j", "2", "--cache", cache.toString(), "--parallel-check", directory.toString()));
+
+		assertEquals(Compiler.compile(VALID).getCss(), Files.readString(directory.resolve("first.css")));
+		assertTrue(Files.isRegularFile(directory.resolve("nested/second.css")));
+		assertFalse(Files.exists(directory.resolve("nested/notes.css")));
+		assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("Compiled 2 file(s), 0 failed, on 2 thread(s)"));
+		assertEquals("", err.toString(StandardCharsets.UTF_8));
+		try (Stream<Path> cached = Files.list(cache)) {
+			assertEquals(2, cached.count());
+		}
+
+		//The second run reads the checked trees from the cache and writes the same CSS
+		String css = Files.readString(directory.resolve("first.css"));
+		Files.delete(directory.resolve("first.css"));
+		assertEquals(0, run("--cache", cache.toString(), first.toString(), second.toString()));
+		assertEquals(css, Files.readString(directory.resolve("first.css")));
+	}
+
+	@Test
+	void testFailedFileIsReported() throws IOException, InterruptedException {
+		write("good.icss", VALID);
+		Path bad = write("bad.icss", "p { width: ; }\n");
+
+		assertEquals(1, run(directory.toString()));
+
+		assertTrue(Files.isRegularFile(directory.resolve("good.css")));
+		assertFalse(Files.exists(directory.resolve("bad.css")));
+		assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("Compiled 2 file(s), 1 failed"));
+		String errors = err.toString(StandardCharsets.UTF_8);
+		assertTrue(errors.startsWith(bad + ":"), errors);
+	}
+
+	@Test
+	void testMissingFileIsReported() throws IOException, InterruptedException {
+		Path missing = directory.resolve("missing.icss");
+
+		assertEquals(1, run(missing.toString()));
+		assertTrue(err.toString(StandardCharsets.UTF_8).contains("IO error"));
+	}
+
+	@Test
+	void testUsageWithoutInputs() throws IOException, InterruptedException {
+		assertEquals(2, run("-j", "2"));
+		assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("Usage: BatchCompiler"));
+	}
+}
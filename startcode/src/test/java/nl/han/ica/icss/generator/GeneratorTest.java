@@ -0,0 +1,42 @@
+package nl.han.ica.icss.generator;
+
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratorTest {
+
+	String format(String color) {
+		StringBuilder sb = new StringBuilder();
+		Generator.appendColor(sb, new ColorLiteral(color).rgba);
+		return sb.toString();
+	}
+
+	@Test
+	void testColorsUseShortFormWhenLossless() {
+		assertEquals("#fff", format("#ffffff"));
+		assertEquals("#fff", format("#FFF"));
+		assertEquals("#f80", format("#ff8800"));
+		assertEquals("#124532", format("#124532"));
+		assertEquals("#ff8801", format("#FF8801"));
+		assertEquals("#000", format("#000000"));
+	}
+
+	@Test
+	void testColorLiteralPacksRgba() {
+		ColorLiteral color = new ColorLiteral("#1a2B3c");
+		assertEquals(0x1a2b3cff, color.rgba);
+		assertEquals(0x1a, color.getRed());
+		assertEquals(0x2b, color.getGreen());
+		assertEquals(0x3c, color.getBlue());
+		assertEquals(ColorLiteral.OPAQUE, color.getAlpha());
+		assertEquals("#1a2b3c", color.getText());
+		assertEquals(new ColorLiteral("#abc"), new ColorLiteral("#AABBCC"));
+		assertThrows(IllegalArgumentException.class, () -> new ColorLiteral("#abcd"));
+
+		StringBuilder sb = new StringBuilder();
+		Generator.appendColor(sb, 0x11223300);
+		assertEquals("#11223300", sb.toString());
+	}
+}
@@ -11,8 +11,21 @@ import nl.han.ica.icss.ast.selectors.ClassSelector;
 import nl.han.ica.icss.ast.selectors.IdSelector;
 import nl.han.ica.icss.ast.selectors.TagSelector;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 public class Fixtures {
 
+	/*
+	 The text of a file in the test resources, such as level3.icss.
+	 */
+	public static String readTestFile(String resource) throws IOException {
+		try (InputStream inputStream = Fixtures.class.getClassLoader().getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
     public static AST uncheckedLevel0() {
 		Stylesheet stylesheet = new Stylesheet();
 		/*
@@ -0,0 +1,87 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalParserTest {
+
+	void assertSameAsFullParse(IncrementalParser incremental) {
+		List<String> errors = new ArrayList<>();
+		AST full = ParserDriver.parse(CharStreams.fromString(incremental.getText()), new SyntaxErrorCollector(errors));
+		assertEquals(errors, incremental.getErrors());
+		if (errors.isEmpty())
+			assertEquals(full, incremental.getAST());
+	}
+
+	@Test
+	void testEditInsideRuleOnlyReparsesThatRule() throws IOException {
+		String source = Fixtures.readTestFile("level3.icss");
+		IncrementalParser incremental = new IncrementalParser(source);
+		AST before = incremental.getAST();
+		ASTNode untouched = before.root.body.get(0);
+
+		int offset = source.indexOf("#000000;\n    background-color: LinkColor;");
+		AST after = incremental.applyEdit(offset, 7, "#00ff00");
+
+		assertSame(before, after);
+		assertSame(untouched, after.root.body.get(0));
+		assertTrue(incremental.getLastReparsedLength() < source.length() / 2);
+		assertSameAsFullParse(incremental);
+	}
+
+	@Test
+	void testAddAndRemoveUnits() throws IOException {
+		IncrementalParser incremental = new IncrementalParser(Fixtures.readTestFile("level2.icss"));
+		int size = incremental.getAST().root.body.size();
+
+		incremental.applyEdit(0, 0, "Extra := 3px;\n");
+		assertEquals(size + 1, incremental.getAST().root.body.size());
+		assertSameAsFullParse(incremental);
+
+		String text = incremental.getText();
+		int start = text.indexOf("a {");
+		int end = text.indexOf("}", start) + 1;
+		incremental.applyEdit(start, end - start, "");
+		assertEquals(size, incremental.getAST().root.body.size());
+		assertSameAsFullParse(incremental);
+	}
+
+	@Test
+	void testSyntaxErrorAndRecovery() throws IOException {
+		String source = Fixtures.readTestFile("level1.icss");
+		IncrementalParser incremental = new IncrementalParser(source);
+
+		int offset = source.indexOf("width: 520px;") + "width".length();
+		incremental.applyEdit(offset, 1, "");
+		assertFalse(incremental.getErrors().isEmpty());
+		assertSameAsFullParse(incremental);
+
+		incremental.applyEdit(offset, 0, ":");
+		assertTrue(incremental.getErrors().isEmpty());
+		assertSameAsFullParse(incremental);
+	}
+
+	@Test
+	void testRandomEditsMatchFullParse() throws IOException {
+		String[] snippets = {"", " ", "\n", "p { width: 1px; }", "X := 2;", "}", "{", ";", "a", "#ff0000", "10px + "};
+		Random random = new Random(42);
+		IncrementalParser incremental = new IncrementalParser(Fixtures.readTestFile("level3.icss"));
+
+		for (int i = 0; i < 500; i++) {
+			String text = incremental.getText();
+			int offset = random.nextInt(text.length() + 1);
+			int removed = random.nextInt(Math.min(8, text.length() - offset) + 1);
+			incremental.applyEdit(offset, removed, snippets[random.nextInt(snippets.length)]);
+			assertSameAsFullParse(incremental);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelParserTest {
+
+	@Test
+	void testSplitOnlyAtTopLevel() {
+		String input = "A := 1;\np { if[TRUE] { width: 1px; } }\nB := 2;";
+		List<CharSequence> chunks = ParallelParser.split(input, 1);
+
+		assertEquals(List.of("A := 1;", "\np { if[TRUE] { width: 1px; } }", "\nB := 2;"),
+				chunks.stream().map(CharSequence::toString).toList());
+		assertEquals(1, ParallelParser.split("p { } }", 1).size());
+		assertEquals(1, ParallelParser.split("p { width: 1px;", 1).size());
+	}
+
+	@Test
+	void testMatchesSequentialParse() throws IOException {
+		String input = Fixtures.readTestFile("complex.icss").repeat(20) + Fixtures.readTestFile("level3.icss");
+		for (ParserKind kind : ParserKind.values()) {
+			ParseOptions options = ParseOptions.DEFAULT.withParser(kind);
+			List<String> errors = new ArrayList<>();
+
+			AST sequential = ParserDriver.parse(input, new SyntaxErrorCollector(errors), options);
+			AST parallel = ParallelParser.parse(input, new SyntaxErrorCollector(errors), options.withParallel(true), 100);
+
+			assertTrue(errors.isEmpty());
+			assertEquals(sequential, parallel);
+			assertEquals(sequential.toString(), parallel.toString());
+		}
+	}
+
+	@Test
+	void testErrorsMatchSequentialParse() throws IOException {
+		String input = Fixtures.readTestFile("level3.icss").repeat(10) + "p { width 1px; }" + Fixtures.readTestFile("level2.icss");
+		List<String> expected = new ArrayList<>();
+		List<String> actual = new ArrayList<>();
+
+		ParserDriver.parse(CharStreams.fromString(input), new SyntaxErrorCollector(expected), ParseOptions.DEFAULT);
+		ParallelParser.parse(input, new SyntaxErrorCollector(actual), ParseOptions.DEFAULT.withParallel(true), 100);
+
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, actual);
+	}
+}
@@ -0,0 +1,54 @@
+package nl.han.ica.icss.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Manual benchmark harness, not a unit test: it has no @Test methods and its name does not end in Test,
+ * so Surefire never runs it. It lives under src/test to stay out of the jar.
+ *
+ * Compares the ANTLR parser with the recursive descent parser, each sequential and parallel, on
+ * complex.icss repeated COPIES times into one large stylesheet. Run it from startcode with:
+ *
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) nl.han.ica.icss.parser.ParserBenchmark
+ */
+public class ParserBenchmark {
+
+    //780000 chars: the parallel parsers only split an input of 2 * DEFAULT_MIN_CHUNK_LENGTH or more
+    private static final int COPIES = 2000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException {
+        String source;
+        try (InputStream inputStream = ParserBenchmark.class.getClassLoader().getResourceAsStream("complex.icss")) {
+            source = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).repeat(COPIES);
+        }
+        int chunks = ParallelParser.isWorthSplitting(source.length(), ParseOptions.DEFAULT.withParallel(true))
+                ? ParallelParser.split(source, ParallelParser.DEFAULT_MIN_CHUNK_LENGTH).size() : 1;
+        System.out.printf("Input: %d chars, %d chunks when parallel%n", source.length(), chunks);
+
+        for (ParserKind kind : ParserKind.values()) {
+            for (boolean parallel : new boolean[]{false, true}) {
+                ParseOptions options = ParseOptions.DEFAULT.withParser(kind).withParallel(parallel);
+                System.out.printf("%-17s %-10s best of %d: %6.2f ms%n", kind, parallel ? "parallel" : "sequential",
+                        ROUNDS, bestNanos(source, options) / 1e6);
+            }
+        }
+    }
+
+    private static long bestNanos(String source, ParseOptions options) {
+        //Warm up the JIT and, for ANTLR, the DFA cache
+        for (int i = 0; i < ROUNDS; i++)
+            ParserDriver.parse(source, null, options);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            ParserDriver.parse(source, null, options);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
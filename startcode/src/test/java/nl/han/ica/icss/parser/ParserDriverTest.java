@@ -0,0 +1,181 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.Literals;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserDriverTest {
+
+	CharStream openTestFile(String resource) throws IOException {
+		try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resource)) {
+			return CharStreams.fromStream(inputStream);
+		}
+	}
+
+	@Test
+	void testAllOptionsMatchFixtures() throws IOException {
+		for (ParseMode mode : ParseMode.values()) {
+			for (boolean buildParseTree : new boolean[]{true, false}) {
+				ParseOptions options = ParseOptions.DEFAULT.withMode(mode).withBuildParseTree(buildParseTree);
+				List<String> errors = new ArrayList<>();
+
+				assertEquals(Fixtures.uncheckedLevel0(), ParserDriver.parse(openTestFile("level0.icss"), new SyntaxErrorCollector(errors), options));
+				assertEquals(Fixtures.uncheckedLevel1(), ParserDriver.parse(openTestFile("level1.icss"), new SyntaxErrorCollector(errors), options));
+				assertEquals(Fixtures.uncheckedLevel2(), ParserDriver.parse(openTestFile("level2.icss"), new SyntaxErrorCollector(errors), options));
+				assertEquals(Fixtures.uncheckedLevel3(), ParserDriver.parse(openTestFile("level3.icss"), new SyntaxErrorCollector(errors), options));
+				assertTrue(errors.isEmpty());
+			}
+		}
+	}
+
+	@Test
+	void testOnePassMatchesParseTreeWalk() {
+		String input = "A := (2 + 3) * 4px;\n"
+				+ "p { if[TRUE] { width: A; } else { width: 1px; height: 2px - 1px; } }";
+		List<String> errors = new ArrayList<>();
+
+		AST walked = ParserDriver.parse(CharStreams.fromString(input), new SyntaxErrorCollector(errors),
+				ParseOptions.DEFAULT.withBuildParseTree(true));
+		AST onePass = ParserDriver.parse(CharStreams.fromString(input), new SyntaxErrorCollector(errors),
+				ParseOptions.DEFAULT.withBuildParseTree(false));
+
+		assertTrue(errors.isEmpty());
+		assertEquals(walked, onePass);
+		IfClause ifClause = (IfClause) ((Stylerule) onePass.root.body.get(1)).body.get(0);
+		assertEquals(1, ifClause.body.size());
+		assertEquals(2, ifClause.elseClause.body.size());
+		assertTrue(((VariableAssignment) onePass.root.body.get(0)).expression instanceof MultiplyOperation);
+	}
+
+	@Test
+	void testSllThenLlReportsSameErrorsAsLl() {
+		String input = "p { color: #ff0000 }\na { width 10px; }\n$";
+
+		List<String> llErrors = new ArrayList<>();
+		ParserDriver.parse(CharStreams.fromString(input), new SyntaxErrorCollector(llErrors),
+				ParseOptions.DEFAULT.withMode(ParseMode.LL));
+		List<String> sllErrors = new ArrayList<>();
+		ParserDriver.parse(CharStreams.fromString(input), new SyntaxErrorCollector(sllErrors),
+				ParseOptions.DEFAULT.withMode(ParseMode.SLL_THEN_LL));
+
+		assertFalse(llErrors.isEmpty());
+		assertEquals(llErrors, sllErrors);
+	}
+
+	@Test
+	void testPooledParserIsResetBetweenParses() throws IOException {
+		List<String> errors = new ArrayList<>();
+		ParserDriver.parse(CharStreams.fromString("p { width 10px; }"), new SyntaxErrorCollector(errors));
+		assertFalse(errors.isEmpty());
+
+		errors.clear();
+		AST ast = ParserDriver.parse(openTestFile("level1.icss"), new SyntaxErrorCollector(errors));
+		assertTrue(errors.isEmpty());
+		assertEquals(Fixtures.uncheckedLevel1(), ast);
+	}
+
+	@Test
+	void testWarmUpAndClearDfaCache() {
+		assertEquals(5, ParserPool.warmUp());
+		assertTrue(ParserPool.getDfaStateCount() > 0);
+
+		ParserPool.clearDfaCache();
+		assertEquals(0, ParserPool.getDfaStateCount());
+		assertEquals(0, ParserPool.getPredictionContextCount());
+
+		//The parser of this thread moves to the new cache
+		ParserDriver.parse(CharStreams.fromString("p { width: 1px; }"), null);
+		assertTrue(ParserPool.getDfaStateCount() > 0);
+	}
+
+	@Test
+	void testCacheOverLimitIsReplacedAfterParse() throws IOException {
+		int limit = ParserPool.getDfaStateLimit();
+		try {
+			ParserPool.setDfaStateLimit(1);
+			assertEquals(Fixtures.uncheckedLevel3(), ParserDriver.parse(openTestFile("level3.icss"), null));
+			assertEquals(0, ParserPool.getDfaStateCount());
+		} finally {
+			ParserPool.setDfaStateLimit(limit);
+		}
+	}
+
+	@Test
+	void testMappedFileDecodesLikeString() throws IOException {
+		//Big enough to be memory-mapped, with multi-byte characters on every line
+		StringBuilder content = new StringBuilder();
+		while (content.length() < CharStreamSources.MAPPED_THRESHOLD) {
+			content.append("p { color: #ff0000; } /* \u00e9\u20ac\uD83D\uDE00 */\n");
+		}
+		Path file = Files.createTempFile("mapped", ".icss");
+		try {
+			Files.writeString(file, content, StandardCharsets.UTF_8);
+			CharStream stream = CharStreamSources.fromPath(file);
+			CharStream expected = CharStreams.fromString(content.toString());
+
+			assertEquals(expected.size(), stream.size());
+			assertEquals(expected.getText(Interval.of(0, expected.size() - 1)),
+					stream.getText(Interval.of(0, stream.size() - 1)));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testDigestIsOfDecodedBytes() throws IOException, NoSuchAlgorithmException {
+		String content = "p { color: #ff0000; } /* \u00e9\u20ac\uD83D\uDE00 */\n".repeat(1000);
+		Path file = Files.createTempFile("digest", ".icss");
+		try {
+			Files.writeString(file, content, StandardCharsets.UTF_8);
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			CharStream stream = CharStreamSources.fromPath(file, digest);
+
+			assertEquals(content, stream.getText(Interval.of(0, stream.size() - 1)));
+			assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)),
+					digest.digest());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testLiteralsAreDecodedAndShared() {
+		String input = "A := 2147483647 + 12px;\np { width: 12px; height: 50%; color: #ff0000; background-color: #F00; }";
+		ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(input));
+		lexer.setTokenFactory(LiteralToken.Factory.INSTANCE);
+		Token token = lexer.nextToken();
+		while (token.getType() != ICSSLexer.NUMBER)
+			token = lexer.nextToken();
+		assertTrue(LiteralToken.hasValue(token));
+		assertEquals(Integer.MAX_VALUE, LiteralToken.value(token));
+
+		for (ParserKind kind : ParserKind.values()) {
+			AST ast = ParserDriver.parse(input, null, ParseOptions.DEFAULT.withParser(kind));
+			Operation sum = (Operation) ((VariableAssignment) ast.root.body.get(0)).expression;
+			Stylerule rule = (Stylerule) ast.root.body.get(1);
+
+			assertEquals(new ScalarLiteral(Integer.MAX_VALUE), sum.lhs);
+			assertSame(sum.rhs, ((Declaration) rule.body.get(0)).expression);
+			assertSame(Literals.percentage(50), ((Declaration) rule.body.get(1)).expression);
+			assertSame(((Declaration) rule.body.get(2)).expression, ((Declaration) rule.body.get(3)).expression);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecursiveDescentParserTest {
+
+	static final String[] TRICKY_INPUTS = {
+			"",
+			"p{width:1px;}",
+			"A := 1 + 2 * 3 - 4;",
+			"A := (1 + 2) * (3 - 4) * 5px - 6% + 7;",
+			"A := 10 - 2 - 3 * 4 * 5 + 6;",
+			"#abcd { color: #abc; } #abcdefg { color: #ABCDEF; }",
+			"#-menu { } .a-1 { } h1 { }",
+			"p { if[TRUE] { if[FALSE] { width: 1px; } else { } } else { A := TRUE; } }",
+			"ifx { elsey: IFFY; } IFFY := TRUEISH;",
+			"p { Col_1 := #000000; color: Col_1; height: ((2px)); }",
+			"\tp\r\n{\n  width :  5px  ;\n}\n",
+	};
+
+	static final String[] INVALID_INPUTS = {
+			"p { width 10px; }",
+			"p { width: 10px }",
+			"A := ;",
+			"p { if[TRUE] { } else }",
+			"A := (1 + 2;",
+			"p { width: 99999999999px; }",
+			"p { color: #12; }",
+			"p { width: 1px; } $",
+			"p { wïdth: 1px; }",
+			"{ }",
+			"#abc { }",
+	};
+
+	AST parseWithAntlr(String input) {
+		List<String> errors = new ArrayList<>();
+		AST ast = ParserDriver.parse(CharStreams.fromString(input), new SyntaxErrorCollector(errors), ParseOptions.DEFAULT);
+		assertTrue(errors.isEmpty(), input);
+		return ast;
+	}
+
+	@Test
+	void testMatchesFixtures() throws IOException {
+		assertEquals(Fixtures.uncheckedLevel0(), RecursiveDescentParser.tryParse(Fixtures.readTestFile("level0.icss")));
+		assertEquals(Fixtures.uncheckedLevel1(), RecursiveDescentParser.tryParse(Fixtures.readTestFile("level1.icss")));
+		assertEquals(Fixtures.uncheckedLevel2(), RecursiveDescentParser.tryParse(Fixtures.readTestFile("level2.icss")));
+		assertEquals(Fixtures.uncheckedLevel3(), RecursiveDescentParser.tryParse(Fixtures.readTestFile("level3.icss")));
+	}
+
+	@Test
+	void testMatchesAntlrOnTrickyInputs() throws IOException {
+		List<String> inputs = new ArrayList<>(List.of(TRICKY_INPUTS));
+		inputs.add(Fixtures.readTestFile("complex.icss"));
+		for (String input : inputs) {
+			AST expected = parseWithAntlr(input);
+			AST actual = RecursiveDescentParser.tryParse(input);
+			assertNotNull(actual, input);
+			assertEquals(expected, actual, input);
+			//equals only compares the shape and the literals, the labels also show names and operators
+			assertEquals(expected.toString(), actual.toString(), input);
+		}
+	}
+
+	@Test
+	void testScannerMatchesLexer() {
+		for (String input : TRICKY_INPUTS) {
+			ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(input));
+			AsciiScanner scanner = new AsciiScanner(input);
+			Token token;
+			do {
+				token = lexer.nextToken();
+				scanner.next();
+				assertEquals(token.getType(), scanner.type, input);
+				if (token.getType() != Token.EOF)
+					assertEquals(token.getText(), scanner.text(), input);
+			} while (token.getType() != Token.EOF);
+		}
+	}
+
+	@Test
+	void testInvalidInputFallsBackToAntlrErrors() {
+		ParseOptions recursiveDescent = ParseOptions.DEFAULT.withParser(ParserKind.RECURSIVE_DESCENT);
+		for (String input : INVALID_INPUTS) {
+			assertNull(RecursiveDescentParser.tryParse(input), input);
+
+			List<String> expected = new ArrayList<>();
+			List<String> actual = new ArrayList<>();
+			try {
+				ParserDriver.parse(CharStreams.fromString(input), new SyntaxErrorCollector(expected), ParseOptions.DEFAULT);
+			} catch (RuntimeException e) {
+				expected.add(e.getClass().getName());
+			}
+			try {
+				ParserDriver.parse(input, new SyntaxErrorCollector(actual), recursiveDescent);
+			} catch (RuntimeException e) {
+				actual.add(e.getClass().getName());
+			}
+			assertEquals(expected, actual, input);
+		}
+	}
+
+	@Test
+	void testCharacterOutsideBmpFallsBackToAntlr() {
+		//U+10070, whose low 16 bits are 'p'
+		String input = new String(Character.toChars(0x10070)) + " { width: 1px; }";
+		assertNull(RecursiveDescentParser.tryParse(new CharStreamSequence(CharStreams.fromString(input))));
+
+		List<String> expected = new ArrayList<>();
+		List<String> actual = new ArrayList<>();
+		ParserDriver.parse(CharStreams.fromString(input), new SyntaxErrorCollector(expected), ParseOptions.DEFAULT);
+		ParserDriver.parse(CharStreams.fromString(input), new SyntaxErrorCollector(actual),
+				ParseOptions.DEFAULT.withParser(ParserKind.RECURSIVE_DESCENT));
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, actual);
+	}
+}
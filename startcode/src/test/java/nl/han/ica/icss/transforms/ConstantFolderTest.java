@@ -0,0 +1,88 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.Resolver;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.Fixtures;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConstantFolderTest {
+
+	AST fold(String input) {
+		AST ast = ParserDriver.parse(input, null, ParseOptions.DEFAULT);
+		new Checker().check(ast);
+		new ConstantFolder().apply(ast);
+		return ast;
+	}
+
+	Expression expression(ASTNode statement) {
+		return ((Declaration) statement).expression;
+	}
+
+	@Test
+	void testLiteralOperationsAreFolded() {
+		AST ast = fold("p { width: 10px + 2 * 5px; height: 50px - 3 * 10px; }");
+		Stylerule rule = (Stylerule) ast.root.body.get(0);
+
+		assertEquals(new PixelLiteral(20), expression(rule.body.get(0)));
+		assertEquals(new PixelLiteral(20), expression(rule.body.get(1)));
+	}
+
+	@Test
+	void testVariablesWithKnownValuesAreFolded() {
+		AST ast = fold("A := 2px; B := A * 3; Flag := TRUE;\n"
+				+ "p { C := B + 1px; width: C; if[Flag] { height: A + C; } }");
+		VariableAssignment b = (VariableAssignment) ast.root.body.get(1);
+		Stylerule rule = (Stylerule) ast.root.body.get(3);
+		IfClause ifClause = (IfClause) rule.body.get(2);
+
+		assertEquals(new PixelLiteral(6), b.expression);
+		assertEquals(new PixelLiteral(7), expression(rule.body.get(1)));
+		assertEquals(new BoolLiteral(true), ifClause.conditionalExpression);
+		assertEquals(new PixelLiteral(9), expression(ifClause.body.get(0)));
+	}
+
+	@Test
+	void testUnknownOperandsAreKept() {
+		AST ast = fold("p { width: X + 2 * 3px; }");
+		Operation sum = (Operation) expression(((Stylerule) ast.root.body.get(0)).body.get(0));
+
+		assertTrue(sum.lhs instanceof VariableReference);
+		assertEquals(new PixelLiteral(6), sum.rhs);
+	}
+
+	@Test
+	void testFoldedAssignmentsAreSkippedByTheEvaluator() {
+		AST ast = fold("A := 2px; p { width: A * 2; }");
+		new Evaluator().evaluate(ast);
+
+		assertTrue(((VariableAssignment) ast.root.body.get(0)).unused);
+	}
+
+	@Test
+	void testFoldingGivesTheSameOutput() {
+		String input = "A := 10px; B := A + 5px;\n"
+				+ "p { width: B * 2; C := A - 5px; if[FALSE] { height: C; } else { height: C + B; } }\n"
+				+ "a { width: 50% + 25%; height: 3 * A - B; }";
+		AST unfolded = ParserDriver.parse(input, null, ParseOptions.DEFAULT);
+		new Checker().check(unfolded);
+		Generator generator = new Generator();
+
+		assertEquals(generator.generate(new Evaluator().evaluate(unfolded)),
+				generator.generate(new Evaluator().evaluate(fold(input))));
+
+		AST level3 = Fixtures.uncheckedLevel3();
+		new ConstantFolder().apply(level3);
+		AST unfoldedLevel3 = Fixtures.uncheckedLevel3();
+		Resolver.resolve(unfoldedLevel3);
+		assertEquals(generator.generate(new Evaluator().evaluate(unfoldedLevel3)),
+				generator.generate(new Evaluator().evaluate(level3)));
+	}
+}
@@ -0,0 +1,109 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.Literals;
+import nl.han.ica.icss.checker.Resolver;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.Fixtures;
+import nl.han.ica.icss.parser.ParseOptions;
+import nl.han.ica.icss.parser.ParserDriver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTest {
+
+	AST resolved(AST ast) {
+		Resolver.resolve(ast);
+		return ast;
+	}
+
+	@Test
+	void testEvaluateLeavesInputUntouched() {
+		AST input = resolved(Fixtures.uncheckedLevel3());
+		int hash = input.root.structuralHash();
+
+		AST first = new Evaluator().evaluate(input);
+		AST second = new Evaluator().evaluate(input);
+
+		assertEquals(Fixtures.uncheckedLevel3(), input);
+		input.invalidateHashes();
+		assertEquals(hash, input.root.structuralHash());
+		assertEquals(first, second);
+		assertNotSame(first.root, input.root);
+
+		//Edits to the input still clear its hashes
+		AST edited = Fixtures.uncheckedLevel3();
+		for (AST ast : List.of(input, edited))
+			((Declaration) ((Stylerule) ast.root.body.get(4)).body.get(0)).setExpression(Literals.pixel(1));
+		assertNotEquals(hash, input.root.structuralHash());
+		assertEquals(edited.root.structuralHash(), input.root.structuralHash());
+		assertEquals(edited, input);
+	}
+
+	@Test
+	void testUnchangedNodesAreShared() {
+		AST input = resolved(ParserDriver.parse("A := 2px; p { width: 10px; height: A; }", null, ParseOptions.DEFAULT));
+		Stylerule inputRule = (Stylerule) input.root.body.get(1);
+
+		AST output = new Evaluator().evaluate(input);
+		Stylerule outputRule = (Stylerule) output.root.body.get(0);
+
+		assertEquals(1, output.root.body.size());
+		assertSame(inputRule.selectors.get(0), outputRule.selectors.get(0));
+		assertSame(inputRule.body.get(0), outputRule.body.get(0));
+		Declaration height = (Declaration) outputRule.body.get(1);
+		assertNotSame(inputRule.body.get(1), height);
+		assertSame(((Declaration) inputRule.body.get(1)).property, height.property);
+	}
+
+	@Test
+	void testInputHashesFollowEditsAfterEvaluate() {
+		AST input = resolved(ParserDriver.parse("p { width: 10px; }", null, ParseOptions.DEFAULT));
+		input.root.structuralHash();
+		new Evaluator().evaluate(input);
+
+		//The shared declaration still belongs to the input
+		Declaration width = (Declaration) ((Stylerule) input.root.body.get(0)).body.get(0);
+		width.setExpression(Literals.pixel(20));
+		assertEquals(ParserDriver.parse("p { width: 20px; }", null, ParseOptions.DEFAULT), input);
+	}
+
+	@Test
+	void testApplyMatchesEvaluate() {
+		AST applied = Fixtures.uncheckedLevel2();
+		new Evaluator().apply(applied);
+		assertEquals(new Evaluator().evaluate(resolved(Fixtures.uncheckedLevel2())), applied);
+	}
+
+	@Test
+	void testEvaluateNeedsResolvedTree() {
+		assertThrows(IllegalStateException.class, () -> new Evaluator().evaluate(Fixtures.uncheckedLevel2()));
+	}
+
+	@Test
+	void testConcurrentEvaluationOfOneTree() throws Exception {
+		AST input = resolved(Fixtures.uncheckedLevel3());
+		String expected = new Generator().generate(new Evaluator().evaluate(input));
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Callable<String>> tasks = IntStream.range(0, 32)
+					.mapToObj(i -> (Callable<String>) () -> new Generator().generate(new Evaluator().evaluate(input)))
+					.collect(Collectors.toList());
+			for (Future<String> result : executor.invokeAll(tasks))
+				assertEquals(expected, result.get());
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(Fixtures.uncheckedLevel3(), input);
+	}
+}